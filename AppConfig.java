@@ -3,9 +3,23 @@ package com.ppi.utility.importer.config;
 
 import com.ppi.utility.importer.MainController;
 import com.ppi.utility.importer.repository.CaseMasterRepository;
+import com.ppi.utility.importer.service.CaseMasterExportService;
+import com.ppi.utility.importer.service.DeltaCaseMasterWriter;
 import com.ppi.utility.importer.service.ExcelProcessingService;
+import com.ppi.utility.importer.service.ImportEngineSelector;
+import com.ppi.utility.importer.service.ImportJobService;
+import com.ppi.utility.importer.service.ImportLedgerService;
+import com.ppi.utility.importer.service.ImportReconciliationService;
+import com.ppi.utility.importer.service.LocalStagingStore;
+import com.ppi.utility.importer.service.ParallelCaseMasterWriter;
+import com.ppi.utility.importer.service.SpeculativeParseService;
+import com.ppi.utility.importer.service.StreamingSheetReader;
+import com.ppi.utility.importer.service.WorkbookOpener;
+import com.ppi.utility.importer.service.WorkbookPreviewService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
 // Removed: org.springframework.core.env.Environment;
 // Removed: org.springframework.jdbc.core.JdbcTemplate;
 // Removed: org.springframework.jdbc.datasource.DriverManagerDataSource;
@@ -34,23 +48,51 @@ public class AppConfig {
      * This allows Spring to manage the lifecycle and dependencies of the MainController,
      * enabling dependency injection into it.
      *
-     * @param excelProcessingService The ExcelProcessingService to be injected.
+     * @param importJobService The ImportJobService that runs submitted imports.
+     * @param workbookPreviewService The WorkbookPreviewService used for the file preview.
+     * @param caseMasterExportService Writes CASE_MASTER_TBL back to an .xlsx file.
+     * @param speculativeParseService Parses a selected file in the background before it is submitted.
      * @return An instance of MainController.
      */
     @Bean
-    public MainController mainController(ExcelProcessingService excelProcessingService) {
-        return new MainController(excelProcessingService);
+    public MainController mainController(ImportJobService importJobService,
+                                         WorkbookPreviewService workbookPreviewService,
+                                         CaseMasterExportService caseMasterExportService,
+                                         SpeculativeParseService speculativeParseService) {
+        return new MainController(importJobService, workbookPreviewService, caseMasterExportService, speculativeParseService);
     }
 
     /**
      * Defines a Spring bean for the ExcelProcessingService.
      *
      * @param caseMasterRepository The CaseMasterRepository (JPA interface) to be injected.
+     * @param parallelCaseMasterWriter The writer used when importer.write.parallelism is greater than 1.
+     * @param importLedgerService The ledger used to detect files that were already imported.
+     * @param importReconciliationService Checks CASE_MASTER_TBL against the parsed rows after each import.
+     * @param transactionManager The transaction manager for the sequential write path.
+     * @param workbookOpener Opens workbooks without buffering the whole file.
+     * @param deltaCaseMasterWriter Writes only new and changed rows for delta imports.
+     * @param streamingSheetReader Reads large files row by row.
+     * @param importEngineSelector Chooses between the in-memory and streaming engines per file.
+     * @param localStagingStore Holds the rows of imports the database cannot take right now.
+     * @param writeTimeoutSeconds Longest a write transaction may take (importer.write.timeout-seconds), 0 for no limit.
      * @return An instance of ExcelProcessingService.
      */
     @Bean
-    public ExcelProcessingService excelProcessingService(CaseMasterRepository caseMasterRepository) {
-        return new ExcelProcessingService(caseMasterRepository);
+    public ExcelProcessingService excelProcessingService(CaseMasterRepository caseMasterRepository,
+                                                         ParallelCaseMasterWriter parallelCaseMasterWriter,
+                                                         ImportLedgerService importLedgerService,
+                                                         ImportReconciliationService importReconciliationService,
+                                                         PlatformTransactionManager transactionManager,
+                                                         WorkbookOpener workbookOpener,
+                                                         DeltaCaseMasterWriter deltaCaseMasterWriter,
+                                                         StreamingSheetReader streamingSheetReader,
+                                                         ImportEngineSelector importEngineSelector,
+                                                         LocalStagingStore localStagingStore,
+                                                         @Value("${importer.write.timeout-seconds:0}") int writeTimeoutSeconds) {
+        return new ExcelProcessingService(caseMasterRepository, parallelCaseMasterWriter, importLedgerService,
+                importReconciliationService, transactionManager, workbookOpener, deltaCaseMasterWriter,
+                streamingSheetReader, importEngineSelector, localStagingStore, writeTimeoutSeconds);
     }
 
     // Removed: CaseMasterRepository bean, as Spring Data JPA automatically provides implementation for interfaces extending JpaRepository
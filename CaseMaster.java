@@ -11,7 +11,14 @@ import java.time.LocalDateTime;
  * before insertion into the database.
  */
 @Entity
-@Table(name = "CASE_MASTER_TBL")
+@Table(name = "CASE_MASTER_TBL", indexes = {
+        // Lookups by reference; the composite index also serves lookups by THIRD_PARTY_REFERENCE_1 alone
+        @Index(name = "CASE_MASTER_REF_IDX", columnList = "THIRD_PARTY_REFERENCE_1, THIRD_PARTY_REFERENCE_2"),
+        @Index(name = "CASE_MASTER_REF2_IDX", columnList = "THIRD_PARTY_REFERENCE_2"),
+        // Per-import queries (export, keyset pages) filter on SUBMITTED_TS and order by CASE_ID
+        @Index(name = "CASE_MASTER_SUBMITTED_TS_IDX", columnList = "SUBMITTED_TS, CASE_ID"),
+        // Reconciliation reads back the rows of one import
+        @Index(name = "CASE_MASTER_LEDGER_IDX", columnList = "IMPORT_LEDGER_ID")})
 public class CaseMaster {
 
     // CASE_ID is populated by a sequence
@@ -63,6 +70,10 @@ public class CaseMaster {
     @Column(name = "THIRD_PARTY_REFERENCE_2", length = 50)
     private String thirdPartyReference2;
 
+    // IMPORT_LEDGER_TBL entry of the import that wrote the row last; null for rows written before it was recorded
+    @Column(name = "IMPORT_LEDGER_ID")
+    private Long importLedgerId;
+
     // Constructors (default and potentially one for convenience)
     public CaseMaster() {
     }
@@ -188,4 +199,12 @@ public class CaseMaster {
     public void setThirdPartyReference2(String thirdPartyReference2) {
         this.thirdPartyReference2 = thirdPartyReference2;
     }
+
+    public Long getImportLedgerId() {
+        return importLedgerId;
+    }
+
+    public void setImportLedgerId(Long importLedgerId) {
+        this.importLedgerId = importLedgerId;
+    }
 }
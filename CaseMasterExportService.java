@@ -0,0 +1,214 @@
+// service/CaseMasterExportService.java
+package com.ppi.utility.importer.service;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service that exports CASE_MASTER_TBL to an .xlsx file in the same template layout the importer reads:
+ * SUBMITTED_TS in D6, column headings in row 9 and one case per row from row 10 in columns B to G.
+ *
+ * Rows are read in CASE_ID order with keyset pagination (WHERE CASE_ID > last seen id) and a large JDBC
+ * fetch size, and written through an SXSSFWorkbook that keeps only a small window of rows on the heap and
+ * flushes the rest to a temp file. Memory use therefore stays constant however many rows are exported.
+ *
+ * The cases of one import are selected by IMPORT_LEDGER_ID (CASE_MASTER_LEDGER_IDX) rather than by SUBMITTED_TS,
+ * which other imports carrying the same D6 share.
+ */
+@Service
+public class CaseMasterExportService {
+
+    // Template layout, see ExcelProcessingService
+    private static final int SUBMITTED_TS_ROW_INDEX = 5;
+    private static final int SUBMITTED_TS_COLUMN = 3;
+    private static final int HEADER_ROW_INDEX = 8;
+    private static final int FIRST_DATA_ROW_INDEX = 9;
+    private static final String[] HEADERS = {
+            "THIRD_PARTY_REFERENCE_1", "THIRD_PARTY_REFERENCE_2", "LAST_NAME", "FIRST_NAME", "DATE_OF_BIRTH", "POST_CODE"};
+
+    private static final String SELECT_COLUMNS =
+            "SELECT CASE_ID, THIRD_PARTY_REFERENCE_1, THIRD_PARTY_REFERENCE_2, LAST_NAME, FIRST_NAME, DATE_OF_BIRTH, POST_CODE "
+                    + "FROM CASE_MASTER_TBL";
+
+    private static final String SELECT_IMPORT_SUBMITTED_TS_SQL =
+            "SELECT MAX(SUBMITTED_TS) FROM CASE_MASTER_TBL WHERE IMPORT_LEDGER_ID = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int pageSize;
+    private final int rowWindow;
+
+    public CaseMasterExportService(DataSource dataSource,
+                                   @Value("${importer.export.page-size:10000}") int pageSize,
+                                   @Value("${importer.export.fetch-size:1000}") int fetchSize,
+                                   @Value("${importer.export.row-window:100}") int rowWindow) {
+        // Own JdbcTemplate, so the large fetch size does not apply to the importer's queries
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.pageSize = Math.max(1, pageSize);
+        this.rowWindow = Math.max(1, rowWindow);
+    }
+
+    /**
+     * Exports cases to the given file, replacing it if it exists.
+     *
+     * @param targetFile The .xlsx file to write.
+     * @param submittedTs Only cases with this SUBMITTED_TS are exported; null exports all cases.
+     *                    Written to D6, or the export time if null, so the file can be re-imported.
+     * @return The number of cases exported.
+     * @throws IOException If the file cannot be written.
+     */
+    public int export(File targetFile, LocalDateTime submittedTs) throws IOException {
+        System.out.println("Exporting cases" + (submittedTs != null ? " with SUBMITTED_TS " + submittedTs : "")
+                + " to " + targetFile.getName() + "...");
+        return export(targetFile, submittedTs != null ? "SUBMITTED_TS = ?" : null,
+                submittedTs != null ? Timestamp.valueOf(submittedTs) : null, submittedTs);
+    }
+
+    /**
+     * Exports the cases written by one import to the given file, replacing it if it exists.
+     * Their SUBMITTED_TS is written to D6 (the export time if the import wrote no cases), so the file can be re-imported.
+     *
+     * @param targetFile The .xlsx file to write.
+     * @param importLedgerId The IMPORT_LEDGER_TBL entry of the import.
+     * @return The number of cases exported.
+     * @throws IOException If the file cannot be written.
+     */
+    public int exportImport(File targetFile, long importLedgerId) throws IOException {
+        System.out.println("Exporting cases of import ledger entry " + importLedgerId + " to " + targetFile.getName() + "...");
+        Timestamp submittedTs = jdbcTemplate.queryForObject(SELECT_IMPORT_SUBMITTED_TS_SQL, Timestamp.class, importLedgerId);
+        return export(targetFile, "IMPORT_LEDGER_ID = ?", importLedgerId,
+                submittedTs != null ? submittedTs.toLocalDateTime() : null);
+    }
+
+    /**
+     * @param condition SQL condition selecting the cases with one bind marker, or null for all cases.
+     * @param submittedTs Written to D6; the export time if null.
+     */
+    private int export(File targetFile, String condition, Object conditionValue, LocalDateTime submittedTs) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true); // Flushed rows are plain XML and compress well
+        try {
+            Sheet sheet = workbook.createSheet("Cases");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
+            CellStyle timestampStyle = workbook.createCellStyle();
+            timestampStyle.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy hh:mm:ss"));
+
+            writeTemplateHeader(sheet, submittedTs != null ? submittedTs : LocalDateTime.now(), timestampStyle);
+
+            int exported = 0;
+            String lastCaseId = null;
+            while (true) {
+                List<Object[]> page = readPage(lastCaseId, condition, conditionValue);
+                for (Object[] values : page) {
+                    writeDataRow(sheet.createRow(FIRST_DATA_ROW_INDEX + exported), values, dateStyle);
+                    exported++;
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+                lastCaseId = (String) page.get(page.size() - 1)[0];
+                System.out.println("Exported " + exported + " cases so far...");
+            }
+
+            try (OutputStream out = new FileOutputStream(targetFile)) {
+                workbook.write(out);
+            }
+            System.out.println("Exported " + exported + " cases to " + targetFile.getAbsolutePath() + ".");
+            return exported;
+        } finally {
+            workbook.close();
+            workbook.dispose(); // Deletes the temp file holding the flushed rows
+        }
+    }
+
+    /**
+     * Reads the next page of cases after the given CASE_ID. Only one page is held at a time.
+     */
+    private List<Object[]> readPage(String afterCaseId, String condition, Object conditionValue) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS);
+        List<Object> params = new ArrayList<>();
+        String separator = " WHERE ";
+        if (condition != null) {
+            sql.append(separator).append(condition);
+            params.add(conditionValue);
+            separator = " AND ";
+        }
+        if (afterCaseId != null) {
+            sql.append(separator).append("CASE_ID > ?");
+            params.add(afterCaseId);
+        }
+        sql.append(" ORDER BY CASE_ID FETCH FIRST ? ROWS ONLY");
+        params.add(pageSize);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> readValues(rs), params.toArray());
+    }
+
+    private Object[] readValues(ResultSet rs) throws SQLException {
+        return new Object[]{
+                rs.getString("CASE_ID"),
+                rs.getString("THIRD_PARTY_REFERENCE_1"),
+                rs.getString("THIRD_PARTY_REFERENCE_2"),
+                rs.getString("LAST_NAME"),
+                rs.getString("FIRST_NAME"),
+                rs.getDate("DATE_OF_BIRTH"),
+                rs.getString("POST_CODE")
+        };
+    }
+
+    /**
+     * Writes rows 1 to 9. All of them are created, even empty, like in the partner files.
+     */
+    private void writeTemplateHeader(Sheet sheet, LocalDateTime submittedTs, CellStyle timestampStyle) {
+        for (int r = 0; r < FIRST_DATA_ROW_INDEX; r++) {
+            Row row = sheet.createRow(r);
+            if (r == SUBMITTED_TS_ROW_INDEX) {
+                Cell submittedTsCell = row.createCell(SUBMITTED_TS_COLUMN);
+                submittedTsCell.setCellValue(submittedTs);
+                submittedTsCell.setCellStyle(timestampStyle);
+            } else if (r == HEADER_ROW_INDEX) {
+                for (int c = 0; c < HEADERS.length; c++) {
+                    row.createCell(c + 1).setCellValue(HEADERS[c]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one case into columns B to G.
+     */
+    private void writeDataRow(Row row, Object[] values, CellStyle dateStyle) {
+        for (int c = 1; c < values.length; c++) {
+            Object value = values[c];
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(c);
+            if (value instanceof Date date) {
+                cell.setCellValue(date.toLocalDate());
+                cell.setCellStyle(dateStyle);
+            } else {
+                cell.setCellValue((String) value);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+// test/service/CaseMasterExportServiceTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.cli.HeadlessImporterApplication;
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = HeadlessImporterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({HeadlessImporterApplication.PROFILE, "local"})
+class CaseMasterExportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private CaseMasterExportService caseMasterExportService;
+
+    @Autowired
+    private ExcelProcessingService excelProcessingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM IMPORT_LEDGER_TBL");
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_TBL");
+    }
+
+    @Test
+    void exportOfAnImportLeavesOutOtherImportsWithTheSameSubmittedTs() throws Exception {
+        List<String[]> people = TestWorkbooks.people(8);
+        File first = TestWorkbooks.write(tempDir, "first.xlsx", TestWorkbooks.SUBMITTED_TS, people.subList(0, 5));
+        File second = TestWorkbooks.write(tempDir, "second.xlsx", TestWorkbooks.SUBMITTED_TS, people.subList(5, 8));
+        ImportResult result = excelProcessingService.processAndSaveExcelData(first, new ImportProgress(), new ImportOptions());
+        excelProcessingService.processAndSaveExcelData(second, new ImportProgress(), new ImportOptions());
+
+        File export = tempDir.resolve("export.xlsx").toFile();
+        int exported = caseMasterExportService.exportImport(export, result.getImportLedgerId());
+
+        assertThat(exported).isEqualTo(5);
+        ParsedWorkbook reread = excelProcessingService.parseExcelDataStreaming(export, new ImportProgress());
+        assertThat(reread.getSubmittedTs()).isEqualTo(TestWorkbooks.SUBMITTED_TS);
+        assertThat(reread.getRows()).extracting(CaseMaster::getThirdPartyReference1)
+                .containsExactly("REF0", "REF1", "REF2", "REF3", "REF4");
+        // The SUBMITTED_TS filter cannot tell the two imports apart
+        assertThat(caseMasterExportService.export(tempDir.resolve("all.xlsx").toFile(), TestWorkbooks.SUBMITTED_TS)).isEqualTo(8);
+    }
+}
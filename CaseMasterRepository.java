@@ -2,16 +2,88 @@
 package com.ppi.utility.importer.repository;
 
 import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.CaseReferenceView;
+import com.ppi.utility.importer.model.CaseSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Repository interface for interacting with the CASE_MASTER_TBL using Spring Data JPA.
  * Extends JpaRepository to get standard CRUD operations automatically.
  * The first type parameter is the Entity type, the second is the type of its Primary Key.
+ *
+ * The read-side methods below return projections (CaseReferenceView, CaseSummary) rather than managed entities,
+ * and page with keysets on CASE_ID rather than OFFSET, so lookups stay cheap on large tables.
+ * They are served by the indexes declared on CaseMaster.
  */
 @Repository
 public interface CaseMasterRepository extends JpaRepository<CaseMaster, String> {
     // Spring Data JPA will automatically provide implementations for standard CRUD operations
     // e.g., save(), findById(), findAll(), delete() etc.
+
+    String SUMMARY_SELECT = "select new com.ppi.utility.importer.model.CaseSummary(c.caseId, c.submittedTs, "
+            + "c.thirdPartyReference1, c.thirdPartyReference2, c.lastName, c.firstName, c.dateOfBirth, c.postCode) "
+            + "from CaseMaster c ";
+
+    // Rows fetched per round trip when streaming; the driver default (10 for Oracle) is far too small
+    String STREAM_FETCH_SIZE = "1000";
+
+    /**
+     * Finds cases by their first third-party reference. Served by CASE_MASTER_REF_IDX.
+     */
+    List<CaseReferenceView> findByThirdPartyReference1(String thirdPartyReference1);
+
+    /**
+     * Finds cases by their second third-party reference. Served by CASE_MASTER_REF2_IDX.
+     */
+    List<CaseReferenceView> findByThirdPartyReference2(String thirdPartyReference2);
+
+    /**
+     * Finds cases by both third-party references; a null reference matches NULL. Served by CASE_MASTER_REF_IDX.
+     */
+    List<CaseReferenceView> findByThirdPartyReference1AndThirdPartyReference2(String thirdPartyReference1,
+                                                                            String thirdPartyReference2);
+
+    /**
+     * Finds cases by last name (case-insensitive) and date of birth.
+     */
+    @Query(SUMMARY_SELECT + "where upper(c.lastName) = upper(:lastName) and c.dateOfBirth = :dateOfBirth order by c.caseId")
+    List<CaseSummary> findSummariesByLastNameAndDateOfBirth(@Param("lastName") String lastName,
+                                                            @Param("dateOfBirth") LocalDate dateOfBirth);
+
+    /**
+     * Reads the first page of the cases of an import, in CASE_ID order. Served by CASE_MASTER_SUBMITTED_TS_IDX.
+     */
+    @Query(SUMMARY_SELECT + "where c.submittedTs = :submittedTs order by c.caseId")
+    List<CaseSummary> findSummariesBySubmittedTs(@Param("submittedTs") LocalDateTime submittedTs, Limit limit);
+
+    /**
+     * Reads the page of the cases of an import that follows the given CASE_ID, the last one of the previous page.
+     * A separate query from the first page, so both are plain index range scans on CASE_MASTER_SUBMITTED_TS_IDX.
+     */
+    @Query(SUMMARY_SELECT + "where c.submittedTs = :submittedTs and c.caseId > :afterCaseId order by c.caseId")
+    List<CaseSummary> findSummariesBySubmittedTsAfter(@Param("submittedTs") LocalDateTime submittedTs,
+                                                      @Param("afterCaseId") String afterCaseId,
+                                                      Limit limit);
+
+    /**
+     * Streams all cases of an import in CASE_ID order without materialising the result list.
+     * Must be called inside a transaction and the stream closed (try-with-resources) to release the cursor.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(SUMMARY_SELECT + "where c.submittedTs = :submittedTs order by c.caseId")
+    Stream<CaseSummary> streamSummariesBySubmittedTs(@Param("submittedTs") LocalDateTime submittedTs);
 }
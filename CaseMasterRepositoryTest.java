@@ -0,0 +1,79 @@
+// test/repository/CaseMasterRepositoryTest.java
+package com.ppi.utility.importer.repository;
+
+import com.ppi.utility.importer.cli.HeadlessImporterApplication;
+import com.ppi.utility.importer.model.CaseSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = HeadlessImporterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({HeadlessImporterApplication.PROFILE, "local"})
+class CaseMasterRepositoryTest {
+
+    private static final LocalDateTime SUBMITTED_TS = LocalDateTime.of(2024, 5, 1, 10, 15);
+
+    @Autowired
+    private CaseMasterRepository caseMasterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertCases() {
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_TBL");
+        for (int i = 0; i < 7; i++) {
+            insert(String.format("C%03d", i), SUBMITTED_TS, "SMITH", LocalDate.of(1980, 1, 1 + i % 2));
+        }
+        insert("C100", SUBMITTED_TS.plusDays(1), "SMITH", LocalDate.of(1980, 1, 1));
+    }
+
+    private void insert(String caseId, LocalDateTime submittedTs, String lastName, LocalDate dateOfBirth) {
+        jdbcTemplate.update("INSERT INTO CASE_MASTER_TBL (CASE_ID, USER_ID, SUBMITTED_TS, LAST_NAME, DATE_OF_BIRTH) "
+                        + "VALUES (?, 'test', ?, ?, ?)",
+                caseId, Timestamp.valueOf(submittedTs), lastName, Date.valueOf(dateOfBirth));
+    }
+
+    @Test
+    void keysetPagesReturnEveryCaseOfTheImportOnce() {
+        List<String> caseIds = new ArrayList<>();
+        List<CaseSummary> page = caseMasterRepository.findSummariesBySubmittedTs(SUBMITTED_TS, Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(summary -> caseIds.add(summary.caseId()));
+            String last = page.get(page.size() - 1).caseId();
+            page = caseMasterRepository.findSummariesBySubmittedTsAfter(SUBMITTED_TS, last, Limit.of(3));
+        }
+
+        assertThat(caseIds).containsExactly("C000", "C001", "C002", "C003", "C004", "C005", "C006");
+    }
+
+    @Test
+    void findsByLastNameIgnoringCaseAndDateOfBirth() {
+        List<CaseSummary> found = caseMasterRepository.findSummariesByLastNameAndDateOfBirth("smith", LocalDate.of(1980, 1, 2));
+
+        assertThat(found).extracting(CaseSummary::caseId).containsExactly("C001", "C003", "C005");
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void streamsTheCasesOfAnImport() {
+        try (Stream<CaseSummary> cases = caseMasterRepository.streamSummariesBySubmittedTs(SUBMITTED_TS.plusDays(1))) {
+            assertThat(cases).extracting(CaseSummary::caseId).containsExactly("C100");
+        }
+    }
+}
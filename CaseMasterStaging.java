@@ -0,0 +1,89 @@
+// model/CaseMasterStaging.java
+package com.ppi.utility.importer.model;
+
+import jakarta.persistence.*; // Use jakarta.persistence for Spring Boot 3+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * JPA Entity representing a row in the CASE_MASTER_STG staging table.
+ * Parallel writers insert parsed rows here first, tagged with the IMPORT_BATCH_ID of their import.
+ * A single publish step then copies the whole batch into CASE_MASTER_TBL and deletes it from staging,
+ * so CASE_MASTER_TBL only ever sees complete files.
+ * The entity exists so that Hibernate (ddl-auto=update) creates the table; rows are written with plain JDBC.
+ */
+@Entity
+@Table(name = "CASE_MASTER_STG", indexes = @Index(name = "CASE_MASTER_STG_BATCH_IDX", columnList = "IMPORT_BATCH_ID"))
+public class CaseMasterStaging {
+
+    // IMPORT_BATCH_ID + ":" + Excel row number
+    @Id
+    @Column(name = "STAGING_ID", length = 64)
+    private String stagingId;
+
+    @Column(name = "IMPORT_BATCH_ID", nullable = false, length = 36)
+    private String importBatchId;
+
+    @Column(name = "ROW_NUMBER_IN_FILE")
+    private Integer rowNumberInFile;
+
+    @Column(name = "CHANNEL_ID", length = 3)
+    private String channelId;
+
+    @Column(name = "USER_ID", nullable = false, length = 50)
+    private String userId;
+
+    @Column(name = "SUBMITTED_TS")
+    private LocalDateTime submittedTs;
+
+    @Column(name = "CASE_TYPE", length = 20)
+    private String caseType;
+
+    @Column(name = "CASE_STATUS_ID")
+    private Integer caseStatusId;
+
+    @Column(name = "IS_CURRENT_UK_RESIDENT", length = 1)
+    private String isCurrentUkResident;
+
+    @Column(name = "TITLE_CODE", length = 35)
+    private String titleCode;
+
+    @Column(name = "FIRST_NAME", length = 35)
+    private String firstName;
+
+    @Column(name = "MIDDLE_NAME", length = 35)
+    private String middleName;
+
+    @Column(name = "LAST_NAME", length = 35)
+    private String lastName;
+
+    @Column(name = "DATE_OF_BIRTH")
+    private LocalDate dateOfBirth;
+
+    @Column(name = "POST_CODE", length = 37)
+    private String postCode;
+
+    @Column(name = "THIRD_PARTY_REFERENCE_1", length = 50)
+    private String thirdPartyReference1;
+
+    @Column(name = "THIRD_PARTY_REFERENCE_2", length = 50)
+    private String thirdPartyReference2;
+
+    @Column(name = "IMPORT_LEDGER_ID")
+    private Long importLedgerId;
+
+    public CaseMasterStaging() {
+    }
+
+    public String getStagingId() {
+        return stagingId;
+    }
+
+    public String getImportBatchId() {
+        return importBatchId;
+    }
+
+    public Integer getRowNumberInFile() {
+        return rowNumberInFile;
+    }
+}
@@ -0,0 +1,53 @@
+// server/CaseQueryController.java
+package com.ppi.utility.importer.server;
+
+import com.ppi.utility.importer.model.CaseSummary;
+import com.ppi.utility.importer.repository.CaseMasterRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read-only endpoint of the upload server for looking at the cases of an import:
+ *   GET /cases?submittedTs=2024-05-01T10:15:00[&after=CASE_ID][&limit=100]
+ * Pages are keyset pages in CASE_ID order: pass the nextAfter of a page as after to get the next one.
+ * nextAfter is null on the last page.
+ */
+@RestController
+@RequestMapping("/cases")
+@Profile(ImporterServerApplication.PROFILE)
+public class CaseQueryController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final CaseMasterRepository caseMasterRepository;
+
+    public CaseQueryController(CaseMasterRepository caseMasterRepository) {
+        this.caseMasterRepository = caseMasterRepository;
+    }
+
+    /**
+     * One page of cases and the CASE_ID to continue after.
+     */
+    public record CasePage(List<CaseSummary> cases, String nextAfter) {
+    }
+
+    @GetMapping
+    public CasePage page(@RequestParam("submittedTs") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime submittedTs,
+                         @RequestParam(name = "after", required = false) String afterCaseId,
+                         @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        Limit pageLimit = Limit.of(Math.max(1, Math.min(limit, MAX_LIMIT)));
+        List<CaseSummary> cases = afterCaseId == null
+                ? caseMasterRepository.findSummariesBySubmittedTs(submittedTs, pageLimit)
+                : caseMasterRepository.findSummariesBySubmittedTsAfter(submittedTs, afterCaseId, pageLimit);
+        String nextAfter = cases.size() == pageLimit.max() ? cases.get(cases.size() - 1).caseId() : null;
+        return new CasePage(cases, nextAfter);
+    }
+}
@@ -0,0 +1,19 @@
+// model/CaseReferenceView.java
+package com.ppi.utility.importer.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Interface projection of CASE_MASTER_TBL used for reference lookups.
+ * Spring Data selects only these columns instead of loading the full CaseMaster entity.
+ */
+public interface CaseReferenceView {
+
+    String getCaseId();
+
+    String getThirdPartyReference1();
+
+    String getThirdPartyReference2();
+
+    LocalDateTime getSubmittedTs();
+}
@@ -0,0 +1,67 @@
+// model/CaseRowFingerprint.java
+package com.ppi.utility.importer.model;
+
+import jakarta.persistence.*; // Use jakarta.persistence for Spring Boot 3+
+import java.time.LocalDateTime;
+
+/**
+ * JPA Entity representing a row in the CASE_ROW_FINGERPRINT_TBL.
+ * For every row a delta import has written, it records which case the row became and a hash of its content,
+ * per file lineage (the successive versions of one partner file). The next delta import of the same lineage
+ * compares its rows against these fingerprints and only writes rows that are new or have changed.
+ * The entity exists so that Hibernate (ddl-auto=update) creates the table; rows are written with plain JDBC.
+ */
+@Entity
+@Table(name = "CASE_ROW_FINGERPRINT_TBL",
+        uniqueConstraints = @UniqueConstraint(name = "CASE_ROW_FINGERPRINT_KEY_UK", columnNames = {"LINEAGE_KEY", "REFERENCE_KEY"}))
+public class CaseRowFingerprint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "case_row_fingerprint_seq_generator")
+    @SequenceGenerator(name = "case_row_fingerprint_seq_generator", sequenceName = "CASE_ROW_FINGERPRINT_SEQ", allocationSize = 1)
+    @Column(name = "FINGERPRINT_ID")
+    private Long fingerprintId;
+
+    @Column(name = "LINEAGE_KEY", nullable = false, length = 255)
+    private String lineageKey;
+
+    // THIRD_PARTY_REFERENCE_1 | THIRD_PARTY_REFERENCE_2 # occurrence of that pair within the file
+    @Column(name = "REFERENCE_KEY", nullable = false, length = 120)
+    private String referenceKey;
+
+    @Column(name = "CASE_ID", nullable = false, length = 20)
+    private String caseId;
+
+    @Column(name = "ROW_HASH", nullable = false, length = 64) // Lower-case hex SHA-256
+    private String rowHash;
+
+    @Column(name = "UPDATED_TS")
+    private LocalDateTime updatedTs;
+
+    public CaseRowFingerprint() {
+    }
+
+    public Long getFingerprintId() {
+        return fingerprintId;
+    }
+
+    public String getLineageKey() {
+        return lineageKey;
+    }
+
+    public String getReferenceKey() {
+        return referenceKey;
+    }
+
+    public String getCaseId() {
+        return caseId;
+    }
+
+    public String getRowHash() {
+        return rowHash;
+    }
+
+    public LocalDateTime getUpdatedTs() {
+        return updatedTs;
+    }
+}
@@ -0,0 +1,32 @@
+// model/CaseSummary.java
+package com.ppi.utility.importer.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of an imported case, with the columns support staff search on.
+ * Built directly by CaseMasterRepository queries, so no managed CaseMaster entities are loaded.
+ */
+public record CaseSummary(String caseId,
+                          LocalDateTime submittedTs,
+                          String thirdPartyReference1,
+                          String thirdPartyReference2,
+                          String lastName,
+                          String firstName,
+                          LocalDate dateOfBirth,
+                          String postCode) {
+
+    /**
+     * @return A one-line description suitable for the console.
+     */
+    public String describe() {
+        return caseId + " [" + nullToEmpty(thirdPartyReference1) + "/" + nullToEmpty(thirdPartyReference2) + "] "
+                + nullToEmpty(lastName) + ", " + nullToEmpty(firstName) + " (" + dateOfBirth + ") "
+                + nullToEmpty(postCode) + " - submitted " + submittedTs;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,445 @@
+// service/DeltaCaseMasterWriter.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Writes a parsed workbook as a delta against the previous import of the same file lineage.
+ *
+ * Each row is identified by its third-party references (plus its occurrence number, should the same pair
+ * appear more than once in a file) and fingerprinted with a SHA-256 hash of its mapped columns. Rows whose
+ * references have no fingerprint in the lineage are inserted, rows whose hash differs update the case they
+ * were written to last time, and unchanged rows are skipped. A corrected 200k-row file where a few hundred
+ * rows changed therefore costs a few hundred writes instead of a full reload.
+ *
+ * Rows without a fingerprint are first looked up in CASE_MASTER_TBL by their references, so the first delta
+ * import after a full (or parallel) import adopts the cases that import wrote: the n-th occurrence of a pair
+ * is matched with the n-th case of that pair in CASE_ID order, updated if its columns differ, and fingerprinted
+ * either way. Cases that already carry a fingerprint belong to a lineage and are never adopted, so a file of
+ * another partner that happens to share a name or references cannot overwrite them. Only rows without such a
+ * case are inserted.
+ *
+ * SUBMITTED_TS is not part of the fingerprint, since every version of a file carries a new D6. Rows that are
+ * missing from the new version are left in place. All writes of one file happen in a single transaction.
+ */
+@Service
+public class DeltaCaseMasterWriter {
+
+    private static final String SELECT_FINGERPRINTS_SQL =
+            "SELECT REFERENCE_KEY, CASE_ID, ROW_HASH FROM CASE_ROW_FINGERPRINT_TBL WHERE LINEAGE_KEY = ?";
+
+    // Draws a block of CASE_IDs from the sequence the CaseMaster entity uses in one round trip
+    private static final String ORACLE_NEXT_CASE_IDS_SQL = "SELECT CASE_ID_SEQ.NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?";
+    private static final String H2_NEXT_CASE_IDS_SQL = "SELECT CASE_ID_SEQ.NEXTVAL FROM SYSTEM_RANGE(1, ?)";
+
+    // Existing cases of rows without a fingerprint that no lineage owns yet; '%s' is a list of bind markers
+    private static final String SELECT_CASES_SQL =
+            "SELECT c.CASE_ID, c.THIRD_PARTY_REFERENCE_1, c.THIRD_PARTY_REFERENCE_2, c.LAST_NAME, c.FIRST_NAME, "
+                    + "c.DATE_OF_BIRTH, c.POST_CODE, c.CHANNEL_ID, c.CASE_TYPE, c.CASE_STATUS_ID FROM CASE_MASTER_TBL c "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM CASE_ROW_FINGERPRINT_TBL f WHERE f.CASE_ID = c.CASE_ID) AND ";
+    private static final String BY_REFERENCE_1 = "c.THIRD_PARTY_REFERENCE_1 IN (%s)";
+    private static final String BY_REFERENCE_2 = "c.THIRD_PARTY_REFERENCE_1 IS NULL AND c.THIRD_PARTY_REFERENCE_2 IN (%s)";
+
+    // Oracle accepts at most 1000 expressions in an IN list
+    private static final int MAX_IN_LIST = 1000;
+
+    // Oldest case first; CASE_IDs are sequence numbers stored as text, so shorter ones are older
+    private static final Comparator<ExistingCase> CASE_ID_ORDER =
+            Comparator.comparingInt((ExistingCase c) -> c.caseId().length()).thenComparing(ExistingCase::caseId);
+
+    private static final String INSERT_CASE_SQL =
+            "INSERT INTO CASE_MASTER_TBL (CASE_ID, CHANNEL_ID, USER_ID, SUBMITTED_TS, CASE_TYPE, CASE_STATUS_ID, "
+                    + "IS_CURRENT_UK_RESIDENT, TITLE_CODE, FIRST_NAME, MIDDLE_NAME, LAST_NAME, DATE_OF_BIRTH, POST_CODE, "
+                    + "THIRD_PARTY_REFERENCE_1, THIRD_PARTY_REFERENCE_2, IMPORT_LEDGER_ID) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_CASE_SQL =
+            "UPDATE CASE_MASTER_TBL SET CHANNEL_ID = ?, USER_ID = ?, SUBMITTED_TS = ?, CASE_TYPE = ?, CASE_STATUS_ID = ?, "
+                    + "IS_CURRENT_UK_RESIDENT = ?, TITLE_CODE = ?, FIRST_NAME = ?, MIDDLE_NAME = ?, LAST_NAME = ?, "
+                    + "DATE_OF_BIRTH = ?, POST_CODE = ?, THIRD_PARTY_REFERENCE_1 = ?, THIRD_PARTY_REFERENCE_2 = ?, "
+                    + "IMPORT_LEDGER_ID = ? WHERE CASE_ID = ?";
+
+    private static final String INSERT_FINGERPRINT_SQL =
+            "INSERT INTO CASE_ROW_FINGERPRINT_TBL (FINGERPRINT_ID, LINEAGE_KEY, REFERENCE_KEY, CASE_ID, ROW_HASH, UPDATED_TS) "
+                    + "VALUES (CASE_ROW_FINGERPRINT_SEQ.NEXTVAL, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_FINGERPRINT_SQL =
+            "UPDATE CASE_ROW_FINGERPRINT_TBL SET CASE_ID = ?, ROW_HASH = ?, UPDATED_TS = ? WHERE LINEAGE_KEY = ? AND REFERENCE_KEY = ?";
+
+    // Version markers stripped from file names to find the lineage, e.g. "partner_cases_v3 (1).xlsx" -> "partner_cases"
+    private static final Pattern VERSION_SUFFIX =
+            Pattern.compile("([ _.-]*(v\\d+|rev\\d+|\\(\\d+\\)|\\d{8}|corrected|final|resend|amended))+$");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private volatile String nextCaseIdsSql;
+
+    public DeltaCaseMasterWriter(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${importer.write.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Derives the default lineage key of a file from its name: lower case, without extension and without
+     * trailing version markers such as _v2, (1), a yyyyMMdd date or "corrected".
+     */
+    public static String lineageKeyFor(File excelFile) {
+        String name = excelFile.getName().toLowerCase(Locale.ROOT);
+        int extension = name.lastIndexOf('.');
+        if (extension > 0) {
+            name = name.substring(0, extension);
+        }
+        String stripped = VERSION_SUFFIX.matcher(name).replaceAll("");
+        return stripped.isEmpty() ? name : stripped;
+    }
+
+    /**
+     * Writes the rows of the workbook that are new or changed since the last delta import of the lineage.
+     *
+     * @param parsedWorkbook The parsed rows.
+     * @param lineageKey Identifies the file lineage whose fingerprints the rows are compared with.
+     * @param progress Receives written row counts; cancellation is checked before every batch.
+     * @return The number of inserted, updated and unchanged rows.
+     * @throws ImportCancelledException If the import was cancelled; nothing is written in that case.
+     */
+    public DeltaImportResult write(ParsedWorkbook parsedWorkbook, String lineageKey, ImportProgress progress) {
+        Map<String, Fingerprint> previous = loadFingerprints(lineageKey);
+
+        // Classify every row against the lineage's fingerprints before touching CASE_MASTER_TBL
+        List<PendingRow> unknown = new ArrayList<>();
+        List<PendingRow> updates = new ArrayList<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        int unchanged = 0;
+        for (int i = 0; i < parsedWorkbook.size(); i++) {
+            CaseMaster caseMaster = parsedWorkbook.getRows().get(i);
+            String referencePair = referencePair(caseMaster.getThirdPartyReference1(), caseMaster.getThirdPartyReference2());
+            String referenceKey = referencePair + "#" + occurrences.merge(referencePair, 1, Integer::sum);
+            String rowHash = fingerprint(caseMaster);
+
+            Fingerprint known = previous.get(referenceKey);
+            if (known == null) {
+                unknown.add(new PendingRow(caseMaster, referenceKey, rowHash, null, false));
+            } else if (!known.rowHash().equals(rowHash)) {
+                updates.add(new PendingRow(caseMaster, referenceKey, rowHash, known.caseId(), true));
+            } else {
+                unchanged++;
+            }
+        }
+
+        // Rows without a fingerprint may still have a case, e.g. written by a full import of the same file
+        Map<String, List<ExistingCase>> existing = loadExistingCases(unknown);
+        List<PendingRow> inserts = new ArrayList<>();
+        List<PendingRow> adopted = new ArrayList<>();
+        int adoptedChanged = 0;
+        for (PendingRow row : unknown) {
+            ExistingCase match = existingCase(existing, row.referenceKey());
+            if (match == null) {
+                inserts.add(row);
+            } else if (match.rowHash().equals(row.rowHash())) {
+                adopted.add(row.withCaseId(match.caseId()));
+                unchanged++;
+            } else {
+                updates.add(row.withCaseId(match.caseId()));
+                adoptedChanged++;
+            }
+        }
+        System.out.println("Delta import of '" + lineageKey + "': " + previous.size() + " fingerprints on record, "
+                + (adopted.size() + adoptedChanged) + " rows matched to existing cases by reference, "
+                + inserts.size() + " new, " + updates.size() + " changed, " + unchanged + " unchanged rows.");
+
+        int rowsUnchanged = unchanged;
+        int[] written = new int[2];
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            recordFingerprints(lineageKey, adopted, now);
+            written[1] = updateCases(lineageKey, updates, inserts, now, progress); // Cases deleted since are re-inserted
+            written[0] = insertCases(lineageKey, inserts, now, progress);
+        });
+        return new DeltaImportResult(lineageKey, written[0], written[1], rowsUnchanged);
+    }
+
+    private Map<String, Fingerprint> loadFingerprints(String lineageKey) {
+        Map<String, Fingerprint> fingerprints = new HashMap<>();
+        jdbcTemplate.query(SELECT_FINGERPRINTS_SQL, rs -> {
+            fingerprints.put(rs.getString(1), new Fingerprint(rs.getString(2), rs.getString(3)));
+        }, lineageKey);
+        return fingerprints;
+    }
+
+    /**
+     * Reads the cases whose references match rows without a fingerprint, grouped by reference pair in CASE_ID
+     * order. Cases that already have a fingerprint in any lineage are left out: another partner's file with the
+     * same name or the same references must never adopt (and then overwrite) them, and no case is adopted twice.
+     */
+    private Map<String, List<ExistingCase>> loadExistingCases(List<PendingRow> rows) {
+        Set<String> byReference1 = new HashSet<>();
+        Set<String> byReference2 = new HashSet<>();
+        for (PendingRow row : rows) {
+            String reference1 = row.caseMaster().getThirdPartyReference1();
+            String reference2 = row.caseMaster().getThirdPartyReference2();
+            if (reference1 != null && !reference1.isEmpty()) {
+                byReference1.add(reference1);
+            } else if (reference2 != null && !reference2.isEmpty()) {
+                byReference2.add(reference2);
+            }
+        }
+        Map<String, List<ExistingCase>> cases = new HashMap<>();
+        queryExistingCases(BY_REFERENCE_1, byReference1, cases);
+        queryExistingCases(BY_REFERENCE_2, byReference2, cases);
+        cases.values().forEach(list -> list.sort(CASE_ID_ORDER));
+        return cases;
+    }
+
+    private void queryExistingCases(String condition, Set<String> references, Map<String, List<ExistingCase>> cases) {
+        List<String> values = new ArrayList<>(references);
+        for (int start = 0; start < values.size(); start += MAX_IN_LIST) {
+            List<String> chunk = values.subList(start, Math.min(start + MAX_IN_LIST, values.size()));
+            String sql = SELECT_CASES_SQL + String.format(condition, String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                String caseId = rs.getString("CASE_ID");
+                CaseMaster stored = new CaseMaster();
+                stored.setThirdPartyReference1(rs.getString("THIRD_PARTY_REFERENCE_1"));
+                stored.setThirdPartyReference2(rs.getString("THIRD_PARTY_REFERENCE_2"));
+                stored.setLastName(rs.getString("LAST_NAME"));
+                stored.setFirstName(rs.getString("FIRST_NAME"));
+                Date dateOfBirth = rs.getDate("DATE_OF_BIRTH");
+                stored.setDateOfBirth(dateOfBirth != null ? dateOfBirth.toLocalDate() : null);
+                stored.setPostCode(rs.getString("POST_CODE"));
+                stored.setChannelId(rs.getString("CHANNEL_ID"));
+                stored.setCaseType(rs.getString("CASE_TYPE"));
+                int caseStatusId = rs.getInt("CASE_STATUS_ID");
+                stored.setCaseStatusId(rs.wasNull() ? null : caseStatusId);
+                String referencePair = referencePair(stored.getThirdPartyReference1(), stored.getThirdPartyReference2());
+                cases.computeIfAbsent(referencePair, k -> new ArrayList<>(1)).add(new ExistingCase(caseId, fingerprint(stored)));
+            }, chunk.toArray());
+        }
+    }
+
+    /**
+     * The case the n-th occurrence of a reference pair corresponds to: the n-th existing case of that pair.
+     */
+    private static ExistingCase existingCase(Map<String, List<ExistingCase>> existing, String referenceKey) {
+        int separator = referenceKey.lastIndexOf('#');
+        List<ExistingCase> cases = existing.get(referenceKey.substring(0, separator));
+        int occurrence = Integer.parseInt(referenceKey.substring(separator + 1));
+        return cases != null && occurrence <= cases.size() ? cases.get(occurrence - 1) : null;
+    }
+
+    /**
+     * Records the fingerprints of written or adopted rows: new ones for rows that had none, updated ones otherwise.
+     */
+    private void recordFingerprints(String lineageKey, List<PendingRow> rows, LocalDateTime now) {
+        List<Object[]> newFingerprints = new ArrayList<>();
+        List<Object[]> changedFingerprints = new ArrayList<>();
+        for (PendingRow row : rows) {
+            if (row.fingerprinted()) {
+                changedFingerprints.add(new Object[]{row.caseId(), row.rowHash(), Timestamp.valueOf(now), lineageKey, row.referenceKey()});
+            } else {
+                newFingerprints.add(new Object[]{lineageKey, row.referenceKey(), row.caseId(), row.rowHash(), Timestamp.valueOf(now)});
+            }
+        }
+        if (!newFingerprints.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FINGERPRINT_SQL, newFingerprints);
+        }
+        if (!changedFingerprints.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_FINGERPRINT_SQL, changedFingerprints);
+        }
+    }
+
+    /**
+     * Updates changed rows in place. Rows whose case has since been deleted from CASE_MASTER_TBL are moved
+     * to the insert list, keeping their fingerprint (if any) so it is repointed at the new case.
+     *
+     * @return The number of cases updated.
+     */
+    private int updateCases(String lineageKey, List<PendingRow> updates, List<PendingRow> inserts, LocalDateTime now, ImportProgress progress) {
+        int updated = 0;
+        for (int batchStart = 0; batchStart < updates.size(); batchStart += batchSize) {
+            progress.checkCancelled("saving");
+            List<PendingRow> batch = updates.subList(batchStart, Math.min(batchStart + batchSize, updates.size()));
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_CASE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int next = bindCaseColumns(ps, 1, batch.get(i).caseMaster());
+                    ps.setString(next, batch.get(i).caseId());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            List<PendingRow> found = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                // SUCCESS_NO_INFO: the driver did not report a count, the row is assumed to exist
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                    found.add(batch.get(i));
+                } else {
+                    inserts.add(batch.get(i));
+                }
+            }
+            recordFingerprints(lineageKey, found, now);
+            updated += found.size();
+            progress.addRowsWritten(found.size());
+        }
+        return updated;
+    }
+
+    /**
+     * Inserts new rows with CASE_IDs drawn in blocks from CASE_ID_SEQ, and records their fingerprints.
+     *
+     * @return The number of cases inserted.
+     */
+    private int insertCases(String lineageKey, List<PendingRow> inserts, LocalDateTime now, ImportProgress progress) {
+        for (int batchStart = 0; batchStart < inserts.size(); batchStart += batchSize) {
+            progress.checkCancelled("saving");
+            List<PendingRow> batch = inserts.subList(batchStart, Math.min(batchStart + batchSize, inserts.size()));
+            List<String> caseIds = jdbcTemplate.queryForList(nextCaseIdsSql(), String.class, batch.size());
+            if (caseIds.size() != batch.size()) {
+                throw new IllegalStateException("Expected " + batch.size() + " CASE_IDs from CASE_ID_SEQ but got " + caseIds.size() + ".");
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_CASE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setString(1, caseIds.get(i));
+                    bindCaseColumns(ps, 2, batch.get(i).caseMaster());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+
+            // Rows re-inserted after their case was deleted already have a fingerprint to repoint
+            List<PendingRow> written = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                written.add(batch.get(i).withCaseId(caseIds.get(i)));
+            }
+            recordFingerprints(lineageKey, written, now);
+            progress.addRowsWritten(batch.size());
+        }
+        return inserts.size();
+    }
+
+    /**
+     * The CASE_ID block query in the SQL dialect of the connected database, looked up once.
+     */
+    private String nextCaseIdsSql() {
+        if (nextCaseIdsSql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            nextCaseIdsSql = product != null && product.startsWith("H2") ? H2_NEXT_CASE_IDS_SQL : ORACLE_NEXT_CASE_IDS_SQL;
+        }
+        return nextCaseIdsSql;
+    }
+
+    /**
+     * Binds the fifteen data columns of CASE_MASTER_TBL (everything but CASE_ID) starting at the given index.
+     *
+     * @return The next free parameter index.
+     */
+    static int bindCaseColumns(PreparedStatement ps, int index, CaseMaster caseMaster) throws SQLException {
+        ps.setString(index++, caseMaster.getChannelId());
+        ps.setString(index++, caseMaster.getUserId());
+        ps.setTimestamp(index++, caseMaster.getSubmittedTs() != null ? Timestamp.valueOf(caseMaster.getSubmittedTs()) : null);
+        ps.setString(index++, caseMaster.getCaseType());
+        ps.setObject(index++, caseMaster.getCaseStatusId(), Types.INTEGER);
+        ps.setString(index++, caseMaster.getIsCurrentUkResident());
+        ps.setString(index++, caseMaster.getTitleCode());
+        ps.setString(index++, caseMaster.getFirstName());
+        ps.setString(index++, caseMaster.getMiddleName());
+        ps.setString(index++, caseMaster.getLastName());
+        ps.setDate(index++, caseMaster.getDateOfBirth() != null ? Date.valueOf(caseMaster.getDateOfBirth()) : null);
+        ps.setString(index++, caseMaster.getPostCode());
+        ps.setString(index++, caseMaster.getThirdPartyReference1());
+        ps.setString(index++, caseMaster.getThirdPartyReference2());
+        ps.setObject(index++, caseMaster.getImportLedgerId(), Types.BIGINT);
+        return index;
+    }
+
+    /**
+     * Hashes every column a file can change. SUBMITTED_TS is left out on purpose: it changes with every version.
+     */
+    private static String fingerprint(CaseMaster caseMaster) {
+        String content = String.join("\u001F",
+                nullToEmpty(caseMaster.getThirdPartyReference1()),
+                nullToEmpty(caseMaster.getThirdPartyReference2()),
+                nullToEmpty(caseMaster.getLastName()),
+                nullToEmpty(caseMaster.getFirstName()),
+                caseMaster.getDateOfBirth() != null ? caseMaster.getDateOfBirth().toString() : "",
+                nullToEmpty(caseMaster.getPostCode()),
+                nullToEmpty(caseMaster.getChannelId()),
+                nullToEmpty(caseMaster.getCaseType()),
+                String.valueOf(caseMaster.getCaseStatusId()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM.", e);
+        }
+    }
+
+    private static String referencePair(String thirdPartyReference1, String thirdPartyReference2) {
+        return nullToEmpty(thirdPartyReference1) + "|" + nullToEmpty(thirdPartyReference2);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private record Fingerprint(String caseId, String rowHash) {
+    }
+
+    /**
+     * A case already in CASE_MASTER_TBL and the fingerprint of its stored columns.
+     */
+    private record ExistingCase(String caseId, String rowHash) {
+    }
+
+    /**
+     * A row to write; caseId is the case it was written to last time, or null for a new row. fingerprinted
+     * tells whether the lineage already has a fingerprint for its reference key.
+     */
+    private record PendingRow(CaseMaster caseMaster, String referenceKey, String rowHash, String caseId, boolean fingerprinted) {
+
+        PendingRow withCaseId(String newCaseId) {
+            return new PendingRow(caseMaster, referenceKey, rowHash, newCaseId, fingerprinted);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+// test/service/DeltaCaseMasterWriterTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.cli.HeadlessImporterApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = HeadlessImporterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({HeadlessImporterApplication.PROFILE, "local"})
+class DeltaCaseMasterWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private ExcelProcessingService excelProcessingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM CASE_ROW_FINGERPRINT_TBL");
+        jdbcTemplate.update("DELETE FROM IMPORT_LEDGER_TBL");
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_TBL");
+    }
+
+    @Test
+    void firstDeltaImportInsertsEveryRowAndTheSecondNone() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(12));
+
+        DeltaImportResult first = deltaImport(file);
+        DeltaImportResult second = deltaImport(file);
+
+        assertThat(first.getRowsInserted()).isEqualTo(12);
+        assertThat(second.getRowsInserted()).isZero();
+        assertThat(second.getRowsUnchanged()).isEqualTo(12);
+        assertThat(caseCount()).isEqualTo(12);
+    }
+
+    @Test
+    void deltaImportAfterAFullImportOfTheSameFileInsertsNothing() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(12));
+        excelProcessingService.processAndSaveExcelData(file, new ImportProgress(), new ImportOptions());
+
+        DeltaImportResult delta = deltaImport(file);
+
+        assertThat(delta.getRowsInserted()).isZero();
+        assertThat(delta.getRowsUpdated()).isZero();
+        assertThat(delta.getRowsUnchanged()).isEqualTo(12);
+        assertThat(caseCount()).isEqualTo(12);
+        // The adopted cases are fingerprinted, so the next delta import compares against the fingerprints
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CASE_ROW_FINGERPRINT_TBL", Integer.class)).isEqualTo(12);
+    }
+
+    @Test
+    void correctedFileAfterAFullImportUpdatesOnlyTheChangedRows() throws Exception {
+        List<String[]> rows = TestWorkbooks.people(12);
+        File original = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, rows);
+        excelProcessingService.processAndSaveExcelData(original, new ImportProgress(), new ImportOptions());
+        String caseId = jdbcTemplate.queryForObject("SELECT CASE_ID FROM CASE_MASTER_TBL WHERE THIRD_PARTY_REFERENCE_1 = 'REF4'", String.class);
+
+        rows.get(4)[2] = "SMYTHE";
+        rows.add(new String[]{"REF99", "B99", "JONES", "MARY", "1990-06-15", "EC1A 1BB"});
+        File corrected = TestWorkbooks.write(tempDir, "cases_corrected.xlsx", TestWorkbooks.SUBMITTED_TS.plusDays(1), rows);
+        DeltaImportResult delta = deltaImport(corrected);
+
+        assertThat(delta.getRowsInserted()).isEqualTo(1);
+        assertThat(delta.getRowsUpdated()).isEqualTo(1);
+        assertThat(delta.getRowsUnchanged()).isEqualTo(11);
+        assertThat(caseCount()).isEqualTo(13);
+        assertThat(jdbcTemplate.queryForObject("SELECT LAST_NAME FROM CASE_MASTER_TBL WHERE CASE_ID = ?", String.class, caseId))
+                .isEqualTo("SMYTHE");
+    }
+
+    @Test
+    void caseOwnedByAnotherLineageIsNeverAdopted() throws Exception {
+        File partnerA = TestWorkbooks.write(tempDir, "partner_a.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(3));
+        deltaImport(partnerA, "partner_a");
+        String caseId = jdbcTemplate.queryForObject("SELECT CASE_ID FROM CASE_MASTER_TBL WHERE THIRD_PARTY_REFERENCE_1 = 'REF1'", String.class);
+
+        // Another partner's file reuses the reference REF1 for a different person
+        List<String[]> rows = List.<String[]>of(new String[]{"REF1", "B1", "JONES", "MARY", "1990-06-15", "EC1A 1BB"});
+        File partnerB = TestWorkbooks.write(tempDir, "partner_b.xlsx", TestWorkbooks.SUBMITTED_TS, rows);
+        DeltaImportResult delta = deltaImport(partnerB, "partner_b");
+
+        assertThat(delta.getRowsInserted()).isEqualTo(1);
+        assertThat(delta.getRowsUpdated()).isZero();
+        assertThat(caseCount()).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT LAST_NAME FROM CASE_MASTER_TBL WHERE CASE_ID = ?", String.class, caseId))
+                .isEqualTo("SMITH1");
+        assertThat(jdbcTemplate.queryForObject("SELECT LINEAGE_KEY FROM CASE_ROW_FINGERPRINT_TBL WHERE CASE_ID = ?", String.class,
+                caseId)).isEqualTo("partner_a");
+    }
+
+    private DeltaImportResult deltaImport(File file) throws Exception {
+        return deltaImport(file, "cases");
+    }
+
+    private DeltaImportResult deltaImport(File file, String lineageKey) throws Exception {
+        ImportOptions options = new ImportOptions();
+        options.setDeltaImport(true);
+        options.setLineageKey(lineageKey);
+        options.setAllowDuplicate(true); // The same file may have been imported in full before
+        return excelProcessingService.processAndSaveExcelData(file, new ImportProgress(), options).getDelta();
+    }
+
+    private int caseCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CASE_MASTER_TBL", Integer.class);
+    }
+}
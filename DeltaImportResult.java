@@ -0,0 +1,51 @@
+// service/DeltaImportResult.java
+package com.ppi.utility.importer.service;
+
+/**
+ * Outcome of a delta import: how many rows were new, changed or already up to date.
+ */
+public class DeltaImportResult {
+
+    private final String lineageKey;
+    private final int rowsInserted;
+    private final int rowsUpdated;
+    private final int rowsUnchanged;
+
+    public DeltaImportResult(String lineageKey, int rowsInserted, int rowsUpdated, int rowsUnchanged) {
+        this.lineageKey = lineageKey;
+        this.rowsInserted = rowsInserted;
+        this.rowsUpdated = rowsUpdated;
+        this.rowsUnchanged = rowsUnchanged;
+    }
+
+    public String getLineageKey() {
+        return lineageKey;
+    }
+
+    public int getRowsInserted() {
+        return rowsInserted;
+    }
+
+    public int getRowsUpdated() {
+        return rowsUpdated;
+    }
+
+    public int getRowsUnchanged() {
+        return rowsUnchanged;
+    }
+
+    /**
+     * @return Number of rows written to CASE_MASTER_TBL (inserted plus updated).
+     */
+    public int getRowsWritten() {
+        return rowsInserted + rowsUpdated;
+    }
+
+    /**
+     * @return A one-line summary suitable for the UI or the console.
+     */
+    public String describe() {
+        return "Delta import of '" + lineageKey + "': " + rowsInserted + " new, " + rowsUpdated + " changed, "
+                + rowsUnchanged + " unchanged rows.";
+    }
+}
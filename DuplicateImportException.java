@@ -0,0 +1,27 @@
+// service/DuplicateImportException.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.ImportLedgerEntry;
+
+/**
+ * Thrown before parsing when the import ledger shows that a file with the same content
+ * has already been imported, or is being imported right now.
+ * The import can be repeated deliberately with ImportOptions.setAllowDuplicate(true).
+ */
+public class DuplicateImportException extends RuntimeException {
+
+    private final ImportLedgerEntry previousImport;
+
+    public DuplicateImportException(String fileName, ImportLedgerEntry previousImport) {
+        super("File '" + fileName + "' has the same content as '" + previousImport.getFileName() + "', "
+                + (previousImport.getStatus() == ImportLedgerEntry.Status.IN_PROGRESS
+                        ? "which is being imported right now"
+                        : "imported on " + previousImport.getFinishedTs() + " (" + previousImport.getRowCount() + " rows)")
+                + ".");
+        this.previousImport = previousImport;
+    }
+
+    public ImportLedgerEntry getPreviousImport() {
+        return previousImport;
+    }
+}
@@ -2,20 +2,25 @@
 package com.ppi.utility.importer.service;
 
 import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.ImportLedgerEntry;
+import com.ppi.utility.importer.model.ParsedWorkbook;
 import com.ppi.utility.importer.repository.CaseMasterRepository;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional; // Import for transaction management
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate; // Programmatic transactions for the sequential write path
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.Optional;
 
 /**
  * Service class responsible for reading data from Excel files
@@ -25,24 +30,251 @@ import java.util.Iterator;
 public class ExcelProcessingService {
 
     private final CaseMasterRepository caseMasterRepository;
+    private final ParallelCaseMasterWriter parallelCaseMasterWriter;
+    private final ImportLedgerService importLedgerService;
+    private final ImportReconciliationService importReconciliationService;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkbookOpener workbookOpener;
+    private final DeltaCaseMasterWriter deltaCaseMasterWriter;
+    private final StreamingSheetReader streamingSheetReader;
+    private final ImportEngineSelector importEngineSelector;
+    private final LocalStagingStore localStagingStore;
 
-    public ExcelProcessingService(CaseMasterRepository caseMasterRepository) {
+    public ExcelProcessingService(CaseMasterRepository caseMasterRepository,
+                                  ParallelCaseMasterWriter parallelCaseMasterWriter,
+                                  ImportLedgerService importLedgerService,
+                                  ImportReconciliationService importReconciliationService,
+                                  PlatformTransactionManager transactionManager,
+                                  WorkbookOpener workbookOpener,
+                                  DeltaCaseMasterWriter deltaCaseMasterWriter,
+                                  StreamingSheetReader streamingSheetReader,
+                                  ImportEngineSelector importEngineSelector,
+                                  LocalStagingStore localStagingStore,
+                                  @Value("${importer.write.timeout-seconds:0}") int writeTimeoutSeconds) {
         this.caseMasterRepository = caseMasterRepository;
+        this.parallelCaseMasterWriter = parallelCaseMasterWriter;
+        this.importLedgerService = importLedgerService;
+        this.importReconciliationService = importReconciliationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        if (writeTimeoutSeconds > 0) {
+            this.transactionTemplate.setTimeout(writeTimeoutSeconds);
+        }
+        this.workbookOpener = workbookOpener;
+        this.deltaCaseMasterWriter = deltaCaseMasterWriter;
+        this.streamingSheetReader = streamingSheetReader;
+        this.importEngineSelector = importEngineSelector;
+        this.localStagingStore = localStagingStore;
     }
 
     /**
      * Processes the given Excel file, extracts data, and inserts it into the database.
-     * Uses @Transactional to ensure all insertions for a single file are treated as one transaction.
+     * The file is parsed first, then written either sequentially in a single transaction
+     * or by the ParallelCaseMasterWriter when importer.write.parallelism is greater than 1.
+     * Both paths are all-or-nothing: either every row of the file is inserted or none is.
      *
      * @param excelFile The Excel file to be processed.
+     * @return The number of rows inserted and the post-import reconciliation.
      * @throws IOException If an error occurs while reading the file.
      * @throws IllegalArgumentException If the file format is not supported or data is invalid.
      */
-    @Transactional // Ensures atomicity: all inserts succeed or all rollback
-    public void processAndSaveExcelData(File excelFile) throws IOException, IllegalArgumentException {
-        // Use try-with-resources to ensure FileInputStream is closed
-        try (FileInputStream fis = new FileInputStream(excelFile);
-             Workbook workbook = new XSSFWorkbook(fis)) { // Supports .xlsx files
+    public ImportResult processAndSaveExcelData(File excelFile) throws IOException, IllegalArgumentException {
+        return processAndSaveExcelData(excelFile, new ImportProgress(), new ImportOptions());
+    }
+
+    /**
+     * Same as {@link #processAndSaveExcelData(File)}, reporting progress to and honouring cancellation from
+     * the given ImportProgress. Cancellation is checked between rows while parsing and between rows or
+     * batches while writing; a cancelled import throws ImportCancelledException and rolls back.
+     *
+     * @param excelFile The Excel file to be processed.
+     * @param progress Receives row counts and carries the cancellation request.
+     * @return The number of rows inserted and the post-import reconciliation.
+     * @throws IOException If an error occurs while reading the file.
+     * @throws ImportCancelledException If the import was cancelled.
+     */
+    public ImportResult processAndSaveExcelData(File excelFile, ImportProgress progress) throws IOException, IllegalArgumentException {
+        return processAndSaveExcelData(excelFile, progress, new ImportOptions());
+    }
+
+    /**
+     * Same as {@link #processAndSaveExcelData(File, ImportProgress)} with explicit import options.
+     * Before any parsing, the file's SHA-256 digest is looked up in the import ledger; a file whose content
+     * was already imported (or is being imported) is rejected unless options.isAllowDuplicate() is set.
+     * Every attempt that gets past this check is recorded in the ledger with its outcome and row count.
+     * After a successful import, the stored rows are reconciled with the parsed ones by ImportReconciliationService.
+     * With options.isDeltaImport() only new and changed rows of the file lineage are written (see DeltaCaseMasterWriter)
+     * and the result carries the delta counts instead of a reconciliation.
+     * The file is read with options.getEngine(), or with the engine ImportEngineSelector picks for its size.
+     * With importer.staging.enabled, a full import the database cannot take (unreachable, or slower than
+     * importer.write.timeout-seconds) is written to the LocalStagingStore instead of failing, and the result
+     * reports the staged segment.
+     * With options.getSpeculativeParse() the digest and rows parsed when the file was selected are used instead
+     * of reading the file again, and released once the import is over.
+     *
+     * @param excelFile The Excel file to be processed.
+     * @param progress Receives row counts and carries the cancellation request.
+     * @param options Per-import settings.
+     * @return The number of rows inserted and the post-import reconciliation.
+     * @throws IOException If an error occurs while reading the file.
+     * @throws DuplicateImportException If the same content was already imported and duplicates are not allowed.
+     * @throws ImportCancelledException If the import was cancelled.
+     */
+    public ImportResult processAndSaveExcelData(File excelFile, ImportProgress progress, ImportOptions options) throws IOException, IllegalArgumentException {
+        try {
+            // Check the ledger before any parsing: a re-submitted file is recognised from its digest alone
+            SpeculativeParse.Prepared prepared = options.getSpeculativeParse() != null
+                    ? options.getSpeculativeParse().await(excelFile, progress)
+                    : null;
+            String fileSha256 = prepared != null ? prepared.fileSha256() : importLedgerService.computeSha256(excelFile);
+            ImportLedgerEntry ledgerEntry;
+            try {
+                importLedgerService.expireStaleEntries(fileSha256);
+                Optional<ImportLedgerEntry> previousImport = importLedgerService.findPreviousImport(fileSha256);
+                if (previousImport.isPresent() && !options.isAllowDuplicate()) {
+                    throw new DuplicateImportException(excelFile.getName(), previousImport.get());
+                }
+                // Claims the content; fails with DuplicateImportException if a concurrent import got there first
+                ledgerEntry = importLedgerService.recordStarted(fileSha256, excelFile, options.isAllowDuplicate());
+            } catch (RuntimeException e) {
+                if (!canStage(options, e)) {
+                    throw e;
+                }
+                // The StagingDrainer checks the ledger when it replays the segment
+                System.err.println("Database unavailable before importing " + excelFile.getName() + ", staging it locally: " + e.getMessage());
+                return new ImportResult(localStagingStore.stage(parse(excelFile, progress, options, prepared), excelFile.getName(),
+                        fileSha256, null, options.isAllowDuplicate()));
+            }
+
+            ParsedWorkbook parsedWorkbook;
+            int rowsImported;
+            DeltaImportResult delta = null;
+            try {
+                parsedWorkbook = parse(excelFile, progress, options, prepared);
+                parsedWorkbook.setImportLedgerId(ledgerEntry.getLedgerId()); // Reconciliation finds the rows by it
+                if (options.isDeltaImport()) {
+                    String lineageKey = options.getLineageKey() != null ? options.getLineageKey() : DeltaCaseMasterWriter.lineageKeyFor(excelFile);
+                    delta = deltaCaseMasterWriter.write(parsedWorkbook, lineageKey, progress);
+                    rowsImported = delta.getRowsWritten();
+                } else {
+                    try {
+                        rowsImported = write(parsedWorkbook, progress);
+                    } catch (RuntimeException e) {
+                        if (!canStage(options, e)) {
+                            throw e;
+                        }
+                        // The write rolled back, or its commit failed with an unknown outcome; the rows wait locally and
+                        // the StagingDrainer only inserts them if none are tagged with this ledger entry by then
+                        System.err.println("Database unavailable while writing " + excelFile.getName() + ", staging it locally: " + e.getMessage());
+                        StagedSegment staged = localStagingStore.stage(parsedWorkbook, excelFile.getName(), fileSha256,
+                                ledgerEntry.getLedgerId(), options.isAllowDuplicate());
+                        importLedgerService.recordFinished(ledgerEntry, ImportLedgerEntry.Status.STAGED, 0);
+                        return new ImportResult(staged);
+                    }
+                }
+                importLedgerService.recordFinished(ledgerEntry, ImportLedgerEntry.Status.COMPLETED, rowsImported);
+            } catch (ImportCancelledException e) {
+                importLedgerService.recordFinished(ledgerEntry, ImportLedgerEntry.Status.CANCELLED, 0);
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                importLedgerService.recordFinished(ledgerEntry, ImportLedgerEntry.Status.FAILED, 0);
+                throw e;
+            }
+
+            if (delta != null) {
+                return new ImportResult(delta, ledgerEntry.getLedgerId());
+            }
+            return new ImportResult(rowsImported, reconcile(parsedWorkbook), ledgerEntry.getLedgerId());
+
+        } catch (ImportCancelledException | DuplicateImportException e) {
+            System.out.println(e.getMessage());
+            throw e;
+        } catch (IOException e) {
+            System.err.println("Error reading Excel file: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            System.err.println("An unexpected error occurred during Excel processing: " + e.getMessage());
+            throw new RuntimeException("Failed to process Excel file: " + e.getMessage(), e);
+        } finally {
+            if (options.getSpeculativeParse() != null) {
+                // The job stays listed after it finishes; it must not keep the parsed rows alive
+                options.getSpeculativeParse().discard();
+                options.setSpeculativeParse(null);
+            }
+        }
+    }
+
+    /**
+     * Returns the rows parsed ahead if there are any, otherwise reads the file with options.getEngine(),
+     * or with the engine ImportEngineSelector picks for its size.
+     */
+    private ParsedWorkbook parse(File excelFile, ImportProgress progress, ImportOptions options,
+                                 SpeculativeParse.Prepared prepared) throws IOException {
+        if (prepared != null) {
+            progress.addRowsParsed(prepared.workbook().size());
+            return prepared.workbook();
+        }
+        ImportEngine engine = options.getEngine() != null ? options.getEngine() : importEngineSelector.plan(excelFile).engine();
+        return engine == ImportEngine.STREAMING
+                ? parseExcelDataStreaming(excelFile, progress)
+                : parseExcelData(excelFile, progress);
+    }
+
+    /**
+     * Full imports are staged locally when local staging is enabled and the database is unavailable or too slow.
+     * Delta imports are not, since they have to compare the file with the fingerprints in the database.
+     */
+    private boolean canStage(ImportOptions options, RuntimeException failure) {
+        return localStagingStore.isEnabled() && !options.isDeltaImport() && LocalStagingStore.isDatabaseUnavailable(failure);
+    }
+
+    /**
+     * Writes the parsed rows with the configured write path.
+     */
+    private int write(ParsedWorkbook parsedWorkbook, ImportProgress progress) {
+        if (parallelCaseMasterWriter.isEnabled()) {
+            return parallelCaseMasterWriter.write(parsedWorkbook, progress);
+        }
+        // Ensures atomicity: all inserts succeed or all rollback
+        transactionTemplate.executeWithoutResult(status -> saveSequentially(parsedWorkbook, progress));
+        return parsedWorkbook.size();
+    }
+
+    /**
+     * Runs the post-import reconciliation. The rows are already committed at this point,
+     * so a failing check is reported but does not fail the import.
+     */
+    private ReconciliationResult reconcile(ParsedWorkbook parsedWorkbook) {
+        try {
+            return importReconciliationService.reconcile(parsedWorkbook);
+        } catch (Exception e) {
+            System.err.println("Error reconciling import for SUBMITTED_TS " + parsedWorkbook.getSubmittedTs() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the given Excel file into memory without touching the database.
+     * SUBMITTED_TS is taken from D6 and data rows are read from row 10 onwards
+     * until the first empty row.
+     *
+     * @param excelFile The Excel file to be parsed.
+     * @return The parsed rows together with their common SUBMITTED_TS.
+     * @throws IOException If an error occurs while reading the file.
+     * @throws IllegalArgumentException If the file does not contain any sheets.
+     */
+    public ParsedWorkbook parseExcelData(File excelFile) throws IOException, IllegalArgumentException {
+        return parseExcelData(excelFile, new ImportProgress());
+    }
+
+    /**
+     * Same as {@link #parseExcelData(File)}, counting parsed rows and stopping with
+     * ImportCancelledException as soon as cancellation is requested.
+     */
+    public ParsedWorkbook parseExcelData(File excelFile, ImportProgress progress) throws IOException, IllegalArgumentException {
+        progress.checkCancelled("parsing");
+        // Open the package from the file, so zip entries are inflated on demand instead of buffering the whole file
+        try (WorkbookOpener.OpenedWorkbook opened = workbookOpener.openWorkbook(excelFile)) { // Supports .xlsx files
+            Workbook workbook = opened.getWorkbook();
 
             // Get the first sheet from the workbook
             Sheet sheet = workbook.getSheetAt(0);
@@ -59,77 +291,185 @@ public class ExcelProcessingService {
                     submittedTs = getLocalDateTimeCellValue(submittedTsCell);
                 }
             }
-            if (submittedTs == null) {
-                System.err.println("Warning: SUBMITTED_TS (D6) is empty or invalid. Using current timestamp.");
-                submittedTs = LocalDateTime.now(); // Fallback to current timestamp if D6 is empty/invalid
-            }
+            submittedTs = submittedTsOrNow(submittedTs);
 
+            ParsedWorkbook parsedWorkbook = new ParsedWorkbook(submittedTs);
 
             // --- Iterate rows from 10 onwards (row index 9 - 0-indexed) ---
             // and read columns B to I (column index 1 to 8)
             Iterator<Row> rowIterator = sheet.iterator();
 
-            // Skip rows until row 10 (index 9)
-            int currentRowNum = 0;
-            while (rowIterator.hasNext() && currentRowNum < 9) {
-                rowIterator.next();
-                currentRowNum++;
-            }
-
             // Process rows from 10 onwards
             while (rowIterator.hasNext()) {
+                progress.checkCancelled("parsing");
                 Row currentRow = rowIterator.next();
+                // Skip rows until row 10 (index 9) by row number: header rows that are absent from the sheet are not iterated
+                if (currentRow.getRowNum() < 9) {
+                    continue;
+                }
                 // Check if the row is empty (all cells are null or blank)
                 if (isRowEmpty(currentRow, 1, 8)) { // Check columns B to I for emptiness
                     System.out.println("Empty row detected at row " + (currentRow.getRowNum() + 1) + ". Stopping processing.");
                     break; // Stop if an empty row is detected
                 }
 
-                CaseMaster caseMaster = new CaseMaster();
-                caseMaster.setSubmittedTs(submittedTs); // Set the common submittedTs for all entries
-
-                // Set default values as per requirements (these are already set in CaseMaster constructor, but explicitly here for clarity)
-                caseMaster.setChannelId("10");
-                caseMaster.setUserId("SYS");
-                caseMaster.setCaseType("QRY");
-                caseMaster.setCaseStatusId(8);
-                caseMaster.setIsCurrentUkResident("Y");
-                caseMaster.setTitleCode(null);
-                caseMaster.setMiddleName(null);
-
-
-                // Read data from columns B to G (0-indexed: 1 to 6)
-                // Column B: THIRD_PARTY_REFERENCE_1 (index 1)
-                caseMaster.setThirdPartyReference1(getStringCellValue(currentRow.getCell(1)));
-                // Column C: THIRD_PARTY_REFERENCE_2 (index 2)
-                caseMaster.setThirdPartyReference2(getStringCellValue(currentRow.getCell(2)));
-                // Column D: LAST_NAME (index 3)
-                caseMaster.setLastName(getStringCellValue(currentRow.getCell(3)));
-                // Column E: FIRST_NAME (index 4)
-                caseMaster.setFirstName(getStringCellValue(currentRow.getCell(4)));
-                // Column F: DATE_OF_BIRTH (index 5)
-                caseMaster.setDateOfBirth(getLocalDateCellValue(currentRow.getCell(5)));
-                // Column G: POST_CODE (index 6)
-                caseMaster.setPostCode(getStringCellValue(currentRow.getCell(6)));
-
-                // Insert into database using JPA Repository's save method
-                try {
-                    caseMasterRepository.save(caseMaster); // JPA handles the insert
-                    System.out.println("Inserted record for " + caseMaster.getFirstName() + " " + caseMaster.getLastName() + " (Row " + (currentRow.getRowNum() + 1) + ")");
-                } catch (Exception dbEx) {
-                    System.err.println("Error inserting row " + (currentRow.getRowNum() + 1) + " into database: " + dbEx.getMessage());
-                    // In a transactional context, this exception might cause rollback.
-                    // For now, we print and let the transaction handle it.
-                    throw new RuntimeException("Failed to save data for row " + (currentRow.getRowNum() + 1), dbEx);
-                }
+                parsedWorkbook.addRow(currentRow.getRowNum() + 1, mapRow(currentRow, submittedTs));
+                progress.addRowsParsed(1);
             }
 
-        } catch (IOException e) {
-            System.err.println("Error reading Excel file: " + e.getMessage());
-            throw e;
-        } catch (Exception e) {
-            System.err.println("An unexpected error occurred during Excel processing: " + e.getMessage());
-            throw new RuntimeException("Failed to process Excel file: " + e.getMessage(), e);
+            return parsedWorkbook;
+        }
+    }
+
+    /**
+     * Reads the given Excel file row by row with the StreamingSheetReader instead of loading it as an XSSFWorkbook.
+     * Same layout and result as {@link #parseExcelData(File, ImportProgress)}: SUBMITTED_TS from D6, data rows
+     * from row 10 in columns B to G, stopping at the first row whose columns B to I are all empty.
+     * Only the parsed rows are kept on the heap, never the sheet itself.
+     */
+    public ParsedWorkbook parseExcelDataStreaming(File excelFile, ImportProgress progress) throws IOException, IllegalArgumentException {
+        progress.checkCancelled("parsing");
+        ParsedWorkbook[] parsedWorkbook = new ParsedWorkbook[1];
+        LocalDateTime[] submittedTs = new LocalDateTime[1];
+
+        streamingSheetReader.read(excelFile, (rowNumber, cells) -> {
+            progress.checkCancelled("parsing");
+            if (rowNumber == 6) { // D6
+                submittedTs[0] = parseDateTime(cells[3]);
+            }
+            if (rowNumber < 10) {
+                return true;
+            }
+            if (parsedWorkbook[0] == null) {
+                parsedWorkbook[0] = new ParsedWorkbook(submittedTsOrNow(submittedTs[0]));
+            }
+            if (isRowEmpty(cells, 1, 8)) { // Check columns B to I for emptiness
+                System.out.println("Empty row detected at row " + rowNumber + ". Stopping processing.");
+                return false;
+            }
+            parsedWorkbook[0].addRow(rowNumber, mapRow(cells, parsedWorkbook[0].getSubmittedTs()));
+            progress.addRowsParsed(1);
+            return true;
+        });
+
+        // A sheet that ends before row 10 has no data rows
+        return parsedWorkbook[0] != null ? parsedWorkbook[0] : new ParsedWorkbook(submittedTsOrNow(submittedTs[0]));
+    }
+
+    private LocalDateTime submittedTsOrNow(LocalDateTime submittedTs) {
+        if (submittedTs == null) {
+            System.err.println("Warning: SUBMITTED_TS (D6) is empty or invalid. Using current timestamp.");
+            // Fallback to current timestamp if D6 is empty/invalid; SUBMITTED_TS is a TIMESTAMP(6), so no nanoseconds
+            return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        }
+        return submittedTs;
+    }
+
+    /**
+     * Maps the display values of a streamed row (columns B to G) to a CaseMaster, like {@link #mapRow(Row, LocalDateTime)}.
+     */
+    private CaseMaster mapRow(String[] cells, LocalDateTime submittedTs) {
+        CaseMaster caseMaster = newCaseMaster(submittedTs);
+        caseMaster.setThirdPartyReference1(cells[1]);
+        caseMaster.setThirdPartyReference2(cells[2]);
+        caseMaster.setLastName(cells[3]);
+        caseMaster.setFirstName(cells[4]);
+        caseMaster.setDateOfBirth(parseDate(cells[5]));
+        caseMaster.setPostCode(cells[6]);
+        return caseMaster;
+    }
+
+    private boolean isRowEmpty(String[] cells, int startColIndex, int endColIndex) {
+        for (int c = startColIndex; c <= endColIndex; c++) {
+            if (cells[c] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a streamed date cell: ISO for date-formatted cells, or an Excel serial number for unformatted ones.
+     */
+    private LocalDate parseDate(String value) {
+        LocalDateTime dateTime = parseDateTime(value);
+        return dateTime != null ? dateTime.toLocalDate() : null;
+    }
+
+    private LocalDateTime parseDateTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            // Not ISO: a number without date formatting, as handled by getLocalDateTimeCellValue
+        }
+        try {
+            double serial = Double.parseDouble(value);
+            return DateUtil.isValidExcelDate(serial) ? DateUtil.getLocalDateTime(serial) : null;
+        } catch (NumberFormatException e) {
+            System.err.println("Could not parse cell value as date: " + value);
+            return null;
+        }
+    }
+
+    private CaseMaster newCaseMaster(LocalDateTime submittedTs) {
+        CaseMaster caseMaster = new CaseMaster();
+        caseMaster.setSubmittedTs(submittedTs); // Set the common submittedTs for all entries
+
+        // Set default values as per requirements (these are already set in CaseMaster constructor, but explicitly here for clarity)
+        caseMaster.setChannelId("10");
+        caseMaster.setUserId("SYS");
+        caseMaster.setCaseType("QRY");
+        caseMaster.setCaseStatusId(8);
+        caseMaster.setIsCurrentUkResident("Y");
+        caseMaster.setTitleCode(null);
+        caseMaster.setMiddleName(null);
+        return caseMaster;
+    }
+
+    /**
+     * Builds a CaseMaster from columns B to G of a data row.
+     */
+    private CaseMaster mapRow(Row currentRow, LocalDateTime submittedTs) {
+        CaseMaster caseMaster = newCaseMaster(submittedTs);
+
+        // Read data from columns B to G (0-indexed: 1 to 6)
+        // Column B: THIRD_PARTY_REFERENCE_1 (index 1)
+        caseMaster.setThirdPartyReference1(getStringCellValue(currentRow.getCell(1)));
+        // Column C: THIRD_PARTY_REFERENCE_2 (index 2)
+        caseMaster.setThirdPartyReference2(getStringCellValue(currentRow.getCell(2)));
+        // Column D: LAST_NAME (index 3)
+        caseMaster.setLastName(getStringCellValue(currentRow.getCell(3)));
+        // Column E: FIRST_NAME (index 4)
+        caseMaster.setFirstName(getStringCellValue(currentRow.getCell(4)));
+        // Column F: DATE_OF_BIRTH (index 5)
+        caseMaster.setDateOfBirth(getLocalDateCellValue(currentRow.getCell(5)));
+        // Column G: POST_CODE (index 6)
+        caseMaster.setPostCode(getStringCellValue(currentRow.getCell(6)));
+        return caseMaster;
+    }
+
+    /**
+     * Inserts the parsed rows one by one through the JPA repository.
+     * Must run inside a transaction so that a failure or cancellation on any row rolls back the whole file.
+     */
+    private void saveSequentially(ParsedWorkbook parsedWorkbook, ImportProgress progress) {
+        for (int i = 0; i < parsedWorkbook.size(); i++) {
+            progress.checkCancelled("saving");
+            CaseMaster caseMaster = parsedWorkbook.getRows().get(i);
+            int rowNumber = parsedWorkbook.getRowNumber(i);
+            // Insert into database using JPA Repository's save method
+            try {
+                caseMasterRepository.save(caseMaster); // JPA handles the insert
+                progress.addRowsWritten(1);
+                System.out.println("Inserted record for " + caseMaster.getFirstName() + " " + caseMaster.getLastName() + " (Row " + rowNumber + ")");
+            } catch (Exception dbEx) {
+                System.err.println("Error inserting row " + rowNumber + " into database: " + dbEx.getMessage());
+                // Rethrowing marks the surrounding transaction for rollback.
+                throw new RuntimeException("Failed to save data for row " + rowNumber, dbEx);
+            }
         }
     }
 
@@ -0,0 +1,57 @@
+// test/service/ExcelProcessingServiceTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExcelProcessingServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Only the parsers are used, which need no database
+    private final ExcelProcessingService excelProcessingService = new ExcelProcessingService(null, null, null, null, null,
+            new WorkbookOpener(), null, new StreamingSheetReader(new WorkbookOpener(), 16, 10000, "", false, 8), null, null, 0);
+
+    @Test
+    void bothEnginesParseTheSameRows() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(25));
+
+        assertSameRows(file, 25);
+    }
+
+    @Test
+    void bothEnginesParseTheSameRowsWhenHeaderRowsAreAbsent() throws Exception {
+        File file = TestWorkbooks.writeWithoutHeaderRows(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(25));
+
+        assertSameRows(file, 25);
+    }
+
+    private void assertSameRows(File file, int expectedRows) throws Exception {
+        ParsedWorkbook inMemory = excelProcessingService.parseExcelData(file, new ImportProgress());
+        ParsedWorkbook streamed = excelProcessingService.parseExcelDataStreaming(file, new ImportProgress());
+
+        assertThat(inMemory.size()).isEqualTo(expectedRows);
+        assertThat(streamed.size()).isEqualTo(expectedRows);
+        assertThat(inMemory.getSubmittedTs()).isEqualTo(TestWorkbooks.SUBMITTED_TS).isEqualTo(streamed.getSubmittedTs());
+        assertThat(rowNumbers(inMemory)).startsWith(10).isEqualTo(rowNumbers(streamed));
+        assertThat(inMemory.getRows()).usingRecursiveFieldByFieldElementComparator().isEqualTo(streamed.getRows());
+        assertThat(inMemory.getRows().get(0).getThirdPartyReference1()).isEqualTo("REF0");
+    }
+
+    private static List<Integer> rowNumbers(ParsedWorkbook workbook) {
+        List<Integer> rowNumbers = new ArrayList<>(workbook.size());
+        for (int i = 0; i < workbook.size(); i++) {
+            rowNumbers.add(workbook.getRowNumber(i));
+        }
+        return rowNumbers;
+    }
+}
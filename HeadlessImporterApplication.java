@@ -0,0 +1,53 @@
+// cli/HeadlessImporterApplication.java
+package com.ppi.utility.importer.cli;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Command-line entry point that runs imports and exports without starting JavaFX.
+ * Only the service and repository layers are scanned, so no UI beans are created.
+ *
+ * Usage:
+ *   java -cp importer.jar -Dloader.main=com.ppi.utility.importer.cli.HeadlessImporterApplication \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher --import=cases.xlsx [--allow-duplicate] [--delta]
+ *   ... --export=cases.xlsx [--submitted-ts=2024-05-01T10:15:00 | --import-ledger-id=42]
+ *   ... --find-reference=ABC123
+ *   ... --find-person=SMITH --date-of-birth=1980-01-31
+ *   ... --list-cases=2024-05-01T10:15:00
+ *
+ * The "cli" profile keeps this class and its runner out of the desktop application's component scan.
+ *
+ * This is also the entry point of the native executable built by the "native" Maven profile:
+ *   mvn -Pnative package   (needs GraalVM 22.3+ as JAVA_HOME)
+ *   target/ppi-importer-cli --import=cases.xlsx
+ * ImporterRuntimeHints adds the reflection and resource metadata that Spring AOT cannot infer.
+ */
+@Profile(HeadlessImporterApplication.PROFILE)
+@SpringBootApplication(scanBasePackages = {
+        "com.ppi.utility.importer.service",
+        "com.ppi.utility.importer.repository",
+        "com.ppi.utility.importer.cli"})
+@EntityScan("com.ppi.utility.importer.model")
+@EnableJpaRepositories("com.ppi.utility.importer.repository")
+@ImportRuntimeHints(ImporterRuntimeHints.class)
+public class HeadlessImporterApplication {
+
+    public static final String PROFILE = "cli";
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HeadlessImporterApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(PROFILE)
+                .run(args);
+        // The exit code comes from ImporterCommandLineRunner
+        System.exit(SpringApplication.exit(context));
+    }
+}
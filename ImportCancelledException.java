@@ -0,0 +1,27 @@
+// service/ImportCancelledException.java
+package com.ppi.utility.importer.service;
+
+/**
+ * Thrown when an import stops because the user cancelled it.
+ * It is unchecked so that it rolls back the surrounding transaction like any other failure.
+ */
+public class ImportCancelledException extends RuntimeException {
+
+    private final int rowsParsed;
+    private final int rowsWritten;
+
+    public ImportCancelledException(String stage, int rowsParsed, int rowsWritten) {
+        super("Import cancelled during " + stage + " after " + rowsParsed + " rows parsed and "
+                + rowsWritten + " rows written; all changes were rolled back.");
+        this.rowsParsed = rowsParsed;
+        this.rowsWritten = rowsWritten;
+    }
+
+    public int getRowsParsed() {
+        return rowsParsed;
+    }
+
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+}
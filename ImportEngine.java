@@ -0,0 +1,12 @@
+// service/ImportEngine.java
+package com.ppi.utility.importer.service;
+
+/**
+ * How a workbook is read during an import.
+ * IN_MEMORY loads the whole sheet as an XSSFWorkbook (fast for ordinary files, but needs many times the file's
+ * XML size on the heap); STREAMING reads it row by row with the StreamingSheetReader.
+ * Either way the parsed rows are the same; ImportEngineSelector picks one per file.
+ */
+public enum ImportEngine {
+    IN_MEMORY, STREAMING
+}
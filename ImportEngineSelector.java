@@ -0,0 +1,138 @@
+// service/ImportEngineSelector.java
+package com.ppi.utility.importer.service;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chooses the import engine for a file from an estimate of the heap it needs.
+ *
+ * The estimate uses only package metadata: the uncompressed sizes of the worksheet, shared strings and
+ * styles parts (read from the zip's central directory, nothing is inflated) and the row count in the sheet's
+ * &lt;dimension&gt; element, which sits in the first few hundred bytes of the sheet. Files whose in-memory estimate
+ * stays below importer.engine.in-memory-heap-fraction of the maximum heap are loaded as an XSSFWorkbook;
+ * larger ones are streamed. importer.engine=in-memory or streaming overrides the choice.
+ */
+@Service
+public class ImportEngineSelector {
+
+    // Bytes of uncompressed sheet XML per data row, used when the sheet has no usable <dimension>
+    private static final long SHEET_XML_BYTES_PER_ROW = 250;
+    // Bytes of sheet XML read to find the <dimension> element
+    private static final int DIMENSION_SCAN_BYTES = 4096;
+    private static final Pattern DIMENSION = Pattern.compile("<(?:\\w+:)?dimension\\s+ref=\"[A-Z]+\\d+(?::[A-Z]+(\\d+))?\"");
+    // Heap used by the shared strings held as Java strings, per byte of sharedStrings.xml
+    private static final long SHARED_STRINGS_HEAP_PER_XML_BYTE = 3;
+    // Heap used by a SpillingSharedStringsTable, whose strings stay on disk
+    private static final long SPILLED_SHARED_STRINGS_HEAP_BYTES = 16L * 1024 * 1024;
+
+    private final WorkbookOpener workbookOpener;
+    private final String configuredEngine;
+    private final double inMemoryHeapFraction;
+    private final long domBytesPerXmlByte;
+    private final long parsedRowBytes;
+    private final long sharedStringsSpillThresholdBytes;
+
+    public ImportEngineSelector(WorkbookOpener workbookOpener,
+                                @Value("${importer.engine:auto}") String configuredEngine,
+                                @Value("${importer.engine.in-memory-heap-fraction:0.25}") double inMemoryHeapFraction,
+                                @Value("${importer.engine.dom-bytes-per-xml-byte:10}") long domBytesPerXmlByte,
+                                @Value("${importer.engine.parsed-row-bytes:1024}") long parsedRowBytes,
+                                @Value("${importer.streaming.shared-strings.spill-threshold-mb:16}") long sharedStringsSpillThresholdMb) {
+        this.workbookOpener = workbookOpener;
+        this.configuredEngine = configuredEngine.trim().toLowerCase(Locale.ROOT);
+        this.inMemoryHeapFraction = inMemoryHeapFraction;
+        this.domBytesPerXmlByte = domBytesPerXmlByte;
+        this.parsedRowBytes = parsedRowBytes;
+        this.sharedStringsSpillThresholdBytes = sharedStringsSpillThresholdMb * 1024 * 1024;
+    }
+
+    /**
+     * Estimates the heap needed to import the file and chooses the engine.
+     *
+     * @param excelFile The .xlsx file to import.
+     * @return The chosen engine with the heap estimate for it.
+     * @throws IOException If the file is not a readable .xlsx package.
+     */
+    public ImportPlan plan(File excelFile) throws IOException {
+        long sheetXmlBytes = 0;
+        long sharedStringsBytes = 0;
+        long stylesBytes = 0;
+        long estimatedRows = -1;
+
+        OPCPackage pkg = workbookOpener.openPackage(excelFile);
+        try {
+            // All worksheets are counted, so workbooks with several sheets err on the safe side
+            for (PackagePart sheet : pkg.getPartsByContentType(XSSFRelation.WORKSHEET.getContentType())) {
+                sheetXmlBytes += partSize(sheet, excelFile);
+                if (estimatedRows < 0) {
+                    estimatedRows = readDimensionRows(sheet);
+                }
+            }
+            for (PackagePart part : pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType())) {
+                sharedStringsBytes += partSize(part, excelFile);
+            }
+            for (PackagePart part : pkg.getPartsByContentType(XSSFRelation.STYLES.getContentType())) {
+                stylesBytes += partSize(part, excelFile);
+            }
+        } finally {
+            pkg.revert();
+        }
+        if (estimatedRows < 0) {
+            estimatedRows = sheetXmlBytes / SHEET_XML_BYTES_PER_ROW;
+        }
+
+        long parsedRowsHeap = estimatedRows * parsedRowBytes;
+        long inMemoryHeap = (sheetXmlBytes + sharedStringsBytes + stylesBytes) * domBytesPerXmlByte + parsedRowsHeap;
+        long sharedStringsHeap = sharedStringsBytes > sharedStringsSpillThresholdBytes
+                ? SPILLED_SHARED_STRINGS_HEAP_BYTES
+                : sharedStringsBytes * SHARED_STRINGS_HEAP_PER_XML_BYTE;
+        long streamingHeap = sharedStringsHeap + stylesBytes * domBytesPerXmlByte + parsedRowsHeap;
+
+        long inMemoryLimit = (long) (Runtime.getRuntime().maxMemory() * inMemoryHeapFraction);
+        ImportEngine engine = switch (configuredEngine) {
+            case "in-memory" -> ImportEngine.IN_MEMORY;
+            case "streaming" -> ImportEngine.STREAMING;
+            default -> inMemoryHeap <= inMemoryLimit ? ImportEngine.IN_MEMORY : ImportEngine.STREAMING;
+        };
+        ImportPlan plan = new ImportPlan(engine, engine == ImportEngine.IN_MEMORY ? inMemoryHeap : streamingHeap, estimatedRows);
+        System.out.println("Import plan for " + excelFile.getName() + " (" + (excelFile.length() / 1024) + " KB, ~"
+                + estimatedRows + " rows): " + plan.describe() + ".");
+        return plan;
+    }
+
+    /**
+     * Uncompressed size of a part as recorded in the zip directory. If the size is unknown, the whole file
+     * is assumed to inflate at a typical 10:1 ratio.
+     */
+    private static long partSize(PackagePart part, File excelFile) {
+        long size = part.getSize();
+        return size >= 0 ? size : excelFile.length() * 10;
+    }
+
+    /**
+     * Reads the last row number from the sheet's &lt;dimension ref="A1:I200010"&gt;, or -1 if it is absent.
+     * Only the start of the sheet is inflated.
+     */
+    private static long readDimensionRows(PackagePart sheet) throws IOException {
+        try (InputStream in = sheet.getInputStream()) {
+            String head = new String(in.readNBytes(DIMENSION_SCAN_BYTES), StandardCharsets.UTF_8);
+            Matcher matcher = DIMENSION.matcher(head);
+            if (matcher.find()) {
+                return matcher.group(1) != null ? Long.parseLong(matcher.group(1)) : 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,48 @@
+// test/service/ImportEngineSelectorTest.java
+package com.ppi.utility.importer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImportEngineSelectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void smallFileIsLoadedInMemory() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(12));
+
+        ImportPlan plan = selector("auto", 0.25).plan(file);
+
+        assertThat(plan.engine()).isEqualTo(ImportEngine.IN_MEMORY);
+        assertThat(plan.estimatedRows()).isEqualTo(21); // <dimension ref="A1:G21">: 9 header rows and 12 data rows
+    }
+
+    @Test
+    void fileAboveTheHeapFractionIsStreamed() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(12));
+
+        ImportPlan plan = selector("auto", 0.000001).plan(file);
+
+        assertThat(plan.engine()).isEqualTo(ImportEngine.STREAMING);
+        assertThat(plan.estimatedHeapBytes()).isLessThan(selector("in-memory", 0.000001).plan(file).estimatedHeapBytes());
+    }
+
+    @Test
+    void configuredEngineOverridesTheEstimate() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(12));
+
+        assertThat(selector("Streaming", 0.25).plan(file).engine()).isEqualTo(ImportEngine.STREAMING);
+        assertThat(selector("in-memory", 0.000001).plan(file).engine()).isEqualTo(ImportEngine.IN_MEMORY);
+    }
+
+    private static ImportEngineSelector selector(String engine, double inMemoryHeapFraction) {
+        return new ImportEngineSelector(new WorkbookOpener(), engine, inMemoryHeapFraction, 10, 1024, 16);
+    }
+}
@@ -0,0 +1,210 @@
+// service/ImportJob.java
+package com.ppi.utility.importer.service;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+
+/**
+ * A single file import submitted to the ImportJobService.
+ * Holds the job's status, timing and result; all state changes go through the ImportJobService.
+ * Getters are safe to call from any thread.
+ */
+public class ImportJob {
+
+    /**
+     * Lifecycle of an import job. QUEUED and RUNNING are active; the others are final.
+     * DUPLICATE means the import ledger showed the file's content had already been imported.
+     */
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED, DUPLICATE;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final long id;
+    private final File file;
+    private final ImportOptions options;
+    private final ImportProgress progress = new ImportProgress();
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile int rowsImported;
+    private volatile ImportResult result;
+    private volatile String resultMessage;
+    private volatile Future<?> future;
+    private volatile ImportPlan plan;
+    private volatile boolean waitingForMemory;
+
+    ImportJob(long id, File file, ImportOptions options) {
+        this.id = id;
+        this.file = file;
+        this.options = options;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public ImportOptions getOptions() {
+        return options;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return Row counts and cancellation flag of the running import.
+     */
+    public ImportProgress getProgress() {
+        return progress;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return Time spent running so far (or in total once finished), or zero if the job has not started.
+     */
+    public Duration getRunningTime() {
+        if (startedAt == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(startedAt, finishedAt != null ? finishedAt : LocalDateTime.now());
+    }
+
+    public int getRowsImported() {
+        return rowsImported;
+    }
+
+    /**
+     * @return The import result including reconciliation, or null unless the job SUCCEEDED.
+     */
+    public ImportResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return A user-facing description of the outcome, or null while the job is active.
+     */
+    public String getResultMessage() {
+        return resultMessage;
+    }
+
+    /**
+     * @return The engine and heap estimate chosen for the file, or null before the job has been planned.
+     */
+    public ImportPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return true while the job is held back because the heap cannot take another import yet.
+     */
+    public boolean isWaitingForMemory() {
+        return waitingForMemory;
+    }
+
+    void setPlan(ImportPlan plan) {
+        this.plan = plan;
+    }
+
+    void setWaitingForMemory(boolean waitingForMemory) {
+        this.waitingForMemory = waitingForMemory;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    /**
+     * QUEUED to RUNNING. Fails if the job was cancelled (or otherwise finished) since it was taken from the queue.
+     *
+     * @return true if the job is now RUNNING.
+     */
+    synchronized boolean markRunning() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+        return true;
+    }
+
+    /**
+     * QUEUED to CANCELLED. Fails once the job is running or finished.
+     *
+     * @return true if the job is now CANCELLED.
+     */
+    synchronized boolean cancelIfQueued(String resultMessage) {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        return markFinished(Status.CANCELLED, 0, resultMessage);
+    }
+
+    synchronized boolean markSucceeded(ImportResult result) {
+        if (status.isFinished()) {
+            return false;
+        }
+        this.result = result;
+        return markFinished(Status.SUCCEEDED, result.getRowsImported(), result.describe());
+    }
+
+    /**
+     * Moves the job to its final status, unless it already has one.
+     *
+     * @return true if this call finished the job; only then should listeners be notified.
+     */
+    synchronized boolean markFinished(Status finalStatus, int rowsImported, String resultMessage) {
+        if (status.isFinished()) {
+            return false;
+        }
+        this.rowsImported = rowsImported;
+        this.resultMessage = resultMessage;
+        this.finishedAt = LocalDateTime.now();
+        this.status = finalStatus;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("#" + id + " " + file.getName() + " - " + status);
+        if (waitingForMemory) {
+            text.append(" (waiting for memory)");
+        }
+        if (plan != null && !status.isFinished()) {
+            text.append(" [").append(plan.describe()).append("]");
+        }
+        if (startedAt != null) {
+            text.append(" (").append(getRunningTime().toSeconds()).append("s)");
+        }
+        if (resultMessage != null) {
+            text.append(": ").append(resultMessage);
+        }
+        return text.toString();
+    }
+}
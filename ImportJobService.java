@@ -0,0 +1,312 @@
+// service/ImportJobService.java
+package com.ppi.utility.importer.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Runs file imports as jobs on a bounded executor.
+ *
+ * At most importer.jobs.max-concurrent imports run at the same time, further submissions wait in a
+ * queue of importer.jobs.queue-capacity entries, and anything beyond that is rejected. The concurrency
+ * limit is also capped so that the running jobs' writers cannot ask for more connections than the
+ * Hikari pool holds. Jobs run on named virtual threads, since most of their time is spent waiting on
+ * file and database I/O.
+ *
+ * Before a job starts, ImportEngineSelector estimates the heap it needs. Running jobs reserve their estimate
+ * against a budget of importer.jobs.heap-budget-fraction of the maximum heap; a job whose estimate does not fit
+ * stays QUEUED (waiting for memory) until running jobs release enough, rather than starting and running the JVM
+ * out of memory. A job that exceeds the whole budget on its own still runs, but only when nothing else is.
+ */
+@Service
+public class ImportJobService {
+
+    // Finished jobs kept for display after they complete
+    private static final int FINISHED_JOBS_TO_KEEP = 50;
+    // How often a job waiting for memory re-checks whether it was cancelled
+    private static final long MEMORY_WAIT_POLL_MILLIS = 1000;
+
+    private final ExcelProcessingService excelProcessingService;
+    private final ImportEngineSelector importEngineSelector;
+    private final long heapBudgetBytes;
+    private final ReentrantLock heapLock = new ReentrantLock();
+    private final Condition heapReleased = heapLock.newCondition();
+    private long reservedHeapBytes; // Guarded by heapLock
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong jobIds = new AtomicLong();
+    private final List<ImportJob> jobs = new ArrayList<>(); // Guarded by itself
+    private final List<Consumer<ImportJob>> listeners = new CopyOnWriteArrayList<>();
+
+    public ImportJobService(ExcelProcessingService excelProcessingService,
+                            ImportEngineSelector importEngineSelector,
+                            @Value("${importer.jobs.max-concurrent:2}") int maxConcurrentJobs,
+                            @Value("${importer.jobs.queue-capacity:10}") int queueCapacity,
+                            @Value("${importer.write.parallelism:1}") int writerThreads,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                            @Value("${importer.jobs.heap-budget-fraction:0.6}") double heapBudgetFraction) {
+        this.excelProcessingService = excelProcessingService;
+        this.importEngineSelector = importEngineSelector;
+        this.heapBudgetBytes = (long) (Runtime.getRuntime().maxMemory() * heapBudgetFraction);
+
+        // Each running job can hold up to one connection per writer thread
+        int poolLimit = Math.max(1, connectionPoolSize / Math.max(1, writerThreads));
+        int concurrentJobs = Math.max(1, Math.min(maxConcurrentJobs, poolLimit));
+        if (concurrentJobs < maxConcurrentJobs) {
+            System.err.println("Warning: importer.jobs.max-concurrent=" + maxConcurrentJobs + " would exceed the connection pool ("
+                    + connectionPoolSize + " connections, " + writerThreads + " writers per job). Running at most "
+                    + concurrentJobs + " imports at a time.");
+        }
+
+        this.executor = new ThreadPoolExecutor(concurrentJobs, concurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofVirtual().name("import-job-", 1).factory());
+    }
+
+    /**
+     * Queues an import of the given file with default options.
+     *
+     * @param excelFile The Excel file to import.
+     * @return The new job, initially QUEUED.
+     * @throws IllegalStateException If the queue is full.
+     */
+    public ImportJob submit(File excelFile) {
+        return submit(excelFile, new ImportOptions());
+    }
+
+    /**
+     * Queues an import of the given file.
+     *
+     * @param excelFile The Excel file to import.
+     * @param options Per-import settings, e.g. to confirm a duplicate import.
+     * @return The new job, initially QUEUED.
+     * @throws IllegalStateException If the queue is full.
+     */
+    public ImportJob submit(File excelFile, ImportOptions options) {
+        ImportJob job = new ImportJob(jobIds.incrementAndGet(), excelFile, options);
+        synchronized (jobs) {
+            jobs.add(job);
+            pruneFinishedJobs();
+        }
+        try {
+            Future<?> future = executor.submit(() -> runJob(job));
+            job.setFuture(future);
+        } catch (RejectedExecutionException e) {
+            synchronized (jobs) {
+                jobs.remove(job);
+            }
+            throw new IllegalStateException("Import queue is full (" + executor.getQueue().size()
+                    + " files waiting). Please try again once a running import has finished.");
+        }
+        System.out.println("Queued import job #" + job.getId() + " for " + excelFile.getName() + ".");
+        notifyListeners(job);
+        return job;
+    }
+
+    /**
+     * Cancels a job. A queued job is removed from the queue; a running job stops at its next
+     * cancellation check and rolls back. Finished jobs are left unchanged.
+     *
+     * Whether a job counts as queued is decided by the job's own QUEUED to CANCELLED transition, not by
+     * Future.cancel(), which also succeeds for a task whose worker has already picked it up. A worker that
+     * loses the race sees the job CANCELLED when it tries to mark it RUNNING, and stops without reporting it again.
+     */
+    public void cancel(ImportJob job) {
+        job.getProgress().cancel();
+        if (job.cancelIfQueued("Cancelled before it started.")) {
+            Future<?> future = job.getFuture();
+            if (future != null && future.cancel(false)) {
+                executor.remove((Runnable) future);
+            }
+            job.setWaitingForMemory(false);
+            notifyListeners(job);
+        }
+        wakeJobsWaitingForMemory();
+    }
+
+    /**
+     * @return A snapshot of the queued, running and recently finished jobs, oldest first.
+     */
+    public List<ImportJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs);
+        }
+    }
+
+    /**
+     * @return The job with the given id, if it is still listed (queued, running or recently finished).
+     */
+    public Optional<ImportJob> findJob(long id) {
+        synchronized (jobs) {
+            return jobs.stream().filter(job -> job.getId() == id).findFirst();
+        }
+    }
+
+    /**
+     * Registers a listener that is called, on the job's worker thread, whenever a job changes status.
+     */
+    public void addListener(Consumer<ImportJob> listener) {
+        listeners.add(listener);
+    }
+
+    private void runJob(ImportJob job) {
+        if (job.getStatus() != ImportJob.Status.QUEUED) {
+            return; // Cancelled while waiting
+        }
+        ImportPlan plan;
+        try {
+            plan = importEngineSelector.plan(job.getFile());
+        } catch (Exception e) {
+            System.err.println("Import job #" + job.getId() + " failed: " + e.getMessage());
+            if (job.markFinished(ImportJob.Status.FAILED, 0, e.getMessage())) {
+                notifyListeners(job);
+            }
+            return;
+        }
+        job.setPlan(plan);
+        job.getOptions().setEngine(plan.engine());
+        if (!reserveHeap(job, plan.estimatedHeapBytes())) {
+            return; // Cancelled while waiting for memory
+        }
+
+        if (!job.markRunning()) {
+            releaseHeap(plan.estimatedHeapBytes()); // Cancelled meanwhile; cancel() has reported it
+            return;
+        }
+        notifyListeners(job);
+        try {
+            job.markSucceeded(excelProcessingService.processAndSaveExcelData(job.getFile(), job.getProgress(), job.getOptions()));
+        } catch (DuplicateImportException e) {
+            job.markFinished(ImportJob.Status.DUPLICATE, 0, e.getMessage());
+        } catch (ImportCancelledException e) {
+            job.markFinished(ImportJob.Status.CANCELLED, 0, e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Import job #" + job.getId() + " failed: " + e.getMessage());
+            e.printStackTrace();
+            job.markFinished(ImportJob.Status.FAILED, 0, e.getMessage());
+        } finally {
+            releaseHeap(plan.estimatedHeapBytes());
+        }
+        notifyListeners(job);
+    }
+
+    /**
+     * Blocks until the job's heap estimate fits into the budget next to the running jobs, then reserves it.
+     * A job larger than the whole budget is admitted once nothing else holds a reservation.
+     *
+     * @return true once reserved; false if the job was cancelled while waiting.
+     */
+    private boolean reserveHeap(ImportJob job, long bytes) {
+        heapLock.lock();
+        try {
+            while (reservedHeapBytes > 0 && reservedHeapBytes + bytes > heapBudgetBytes) {
+                if (job.getProgress().isCancelled()) {
+                    break;
+                }
+                if (!job.isWaitingForMemory()) {
+                    System.out.println("Import job #" + job.getId() + " needs ~" + (bytes / (1024 * 1024)) + " MB heap; "
+                            + (reservedHeapBytes / (1024 * 1024)) + " of " + (heapBudgetBytes / (1024 * 1024))
+                            + " MB are reserved by running imports. Waiting.");
+                    job.setWaitingForMemory(true);
+                    notifyListeners(job);
+                }
+                heapReleased.await(MEMORY_WAIT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            if (job.getProgress().isCancelled()) {
+                job.setWaitingForMemory(false);
+                // Otherwise cancel() has already reported it
+                if (job.markFinished(ImportJob.Status.CANCELLED, 0, "Cancelled before it started.")) {
+                    notifyListeners(job);
+                }
+                return false;
+            }
+            reservedHeapBytes += bytes;
+            job.setWaitingForMemory(false);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setWaitingForMemory(false);
+            if (job.markFinished(ImportJob.Status.CANCELLED, 0, "Interrupted while waiting for memory.")) {
+                notifyListeners(job);
+            }
+            return false;
+        } finally {
+            heapLock.unlock();
+        }
+    }
+
+    private void releaseHeap(long bytes) {
+        heapLock.lock();
+        try {
+            reservedHeapBytes -= bytes;
+            heapReleased.signalAll();
+        } finally {
+            heapLock.unlock();
+        }
+    }
+
+    private void wakeJobsWaitingForMemory() {
+        heapLock.lock();
+        try {
+            heapReleased.signalAll(); // A cancelled job that is waiting gives up its slot right away
+        } finally {
+            heapLock.unlock();
+        }
+    }
+
+    private void notifyListeners(ImportJob job) {
+        for (Consumer<ImportJob> listener : listeners) {
+            try {
+                listener.accept(job);
+            } catch (Exception e) {
+                System.err.println("Error notifying import job listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        long finished = jobs.stream().filter(j -> j.getStatus().isFinished()).count();
+        for (int i = 0; i < jobs.size() && finished > FINISHED_JOBS_TO_KEEP; ) {
+            if (jobs.get(i).getStatus().isFinished()) {
+                jobs.remove(i);
+                finished--;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Cancels all jobs when the application shuts down, so running imports roll back instead of being cut off.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (ImportJob job : getJobs()) {
+            job.getProgress().cancel();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
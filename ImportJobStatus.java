@@ -0,0 +1,46 @@
+// server/ImportJobStatus.java
+package com.ppi.utility.importer.server;
+
+import com.ppi.utility.importer.service.ImportJob;
+import com.ppi.utility.importer.service.ImportPlan;
+import com.ppi.utility.importer.service.ImportResult;
+
+import java.time.LocalDateTime;
+
+/**
+ * JSON view of an ImportJob returned by the upload server.
+ *
+ * @param rowsProcessed Rows parsed so far while the job runs; rows imported once it has SUCCEEDED.
+ * @param engine The engine chosen for the file, or null before the job has been planned.
+ * @param reconciled Whether stored rows matched the file, or null unless the job SUCCEEDED.
+ * @param message The outcome, or null while the job is active.
+ */
+public record ImportJobStatus(long id,
+                              String fileName,
+                              ImportJob.Status status,
+                              boolean waitingForMemory,
+                              LocalDateTime submittedAt,
+                              LocalDateTime startedAt,
+                              LocalDateTime finishedAt,
+                              int rowsProcessed,
+                              String engine,
+                              Boolean reconciled,
+                              String message) {
+
+    public static ImportJobStatus of(ImportJob job) {
+        ImportPlan plan = job.getPlan();
+        ImportResult result = job.getResult();
+        return new ImportJobStatus(
+                job.getId(),
+                job.getFile().getName(),
+                job.getStatus(),
+                job.isWaitingForMemory(),
+                job.getSubmittedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getStatus().isFinished() ? job.getRowsImported() : job.getProgress().getRowsParsed(),
+                plan != null ? plan.engine().name() : null,
+                result != null ? result.isReconciled() : null,
+                job.getResultMessage());
+    }
+}
@@ -0,0 +1,43 @@
+// test/service/ImportJobTest.java
+package com.ppi.utility.importer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImportJobTest {
+
+    @Test
+    void cancelledJobCannotBeMarkedRunning() {
+        ImportJob job = new ImportJob(1, new File("cases.xlsx"), new ImportOptions());
+
+        assertThat(job.cancelIfQueued("Cancelled before it started.")).isTrue();
+
+        assertThat(job.markRunning()).isFalse();
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.CANCELLED);
+        assertThat(job.getStartedAt()).isNull();
+    }
+
+    @Test
+    void runningJobCannotBeCancelledAsQueued() {
+        ImportJob job = new ImportJob(1, new File("cases.xlsx"), new ImportOptions());
+
+        assertThat(job.markRunning()).isTrue();
+
+        assertThat(job.cancelIfQueued("Cancelled before it started.")).isFalse();
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.RUNNING);
+    }
+
+    @Test
+    void finishedJobKeepsItsFirstOutcome() {
+        ImportJob job = new ImportJob(1, new File("cases.xlsx"), new ImportOptions());
+        job.cancelIfQueued("Cancelled before it started.");
+
+        assertThat(job.markFinished(ImportJob.Status.FAILED, 0, "Planning failed")).isFalse();
+
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.CANCELLED);
+        assertThat(job.getResultMessage()).isEqualTo("Cancelled before it started.");
+    }
+}
@@ -0,0 +1,136 @@
+// model/ImportLedgerEntry.java
+package com.ppi.utility.importer.model;
+
+import jakarta.persistence.*; // Use jakarta.persistence for Spring Boot 3+
+import java.time.LocalDateTime;
+
+/**
+ * JPA Entity representing a row in the IMPORT_LEDGER_TBL.
+ * One entry is written per import attempt, keyed by the SHA-256 digest of the file's content,
+ * so that a file that has already been imported can be recognised before it is parsed again.
+ * ACTIVE_SHA256 repeats the digest while the entry blocks a re-import and is unique, so two imports of the same
+ * content cannot both be started; imports run with allowDuplicate leave it empty.
+ */
+@Entity
+@Table(name = "IMPORT_LEDGER_TBL",
+        indexes = @Index(name = "IMPORT_LEDGER_SHA256_IDX", columnList = "FILE_SHA256"),
+        uniqueConstraints = @UniqueConstraint(name = "IMPORT_LEDGER_ACTIVE_UK", columnNames = "ACTIVE_SHA256"))
+public class ImportLedgerEntry {
+
+    /**
+     * Outcome of an import attempt. IN_PROGRESS, STAGED and COMPLETED entries block a re-import of the same content.
+     * STAGED means the database could not take the rows, which wait in a local staging segment for the StagingDrainer.
+     */
+    public enum Status {
+        IN_PROGRESS, COMPLETED, FAILED, CANCELLED, STAGED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_ledger_seq_generator")
+    @SequenceGenerator(name = "import_ledger_seq_generator", sequenceName = "IMPORT_LEDGER_SEQ", allocationSize = 1)
+    @Column(name = "LEDGER_ID")
+    private Long ledgerId;
+
+    @Column(name = "FILE_SHA256", nullable = false, length = 64) // Lower-case hex
+    private String fileSha256;
+
+    // FILE_SHA256 while the entry is IN_PROGRESS, STAGED or COMPLETED, otherwise null
+    @Column(name = "ACTIVE_SHA256", length = 64)
+    private String activeSha256;
+
+    @Column(name = "FILE_NAME", length = 255)
+    private String fileName;
+
+    @Column(name = "FILE_SIZE")
+    private Long fileSize;
+
+    @Column(name = "ROW_COUNT")
+    private Integer rowCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "STARTED_TS")
+    private LocalDateTime startedTs;
+
+    @Column(name = "FINISHED_TS")
+    private LocalDateTime finishedTs;
+
+    public ImportLedgerEntry() {
+    }
+
+    // Getters and Setters
+
+    public Long getLedgerId() {
+        return ledgerId;
+    }
+
+    public void setLedgerId(Long ledgerId) {
+        this.ledgerId = ledgerId;
+    }
+
+    public String getFileSha256() {
+        return fileSha256;
+    }
+
+    public void setFileSha256(String fileSha256) {
+        this.fileSha256 = fileSha256;
+    }
+
+    public String getActiveSha256() {
+        return activeSha256;
+    }
+
+    public void setActiveSha256(String activeSha256) {
+        this.activeSha256 = activeSha256;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public Integer getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(Integer rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getStartedTs() {
+        return startedTs;
+    }
+
+    public void setStartedTs(LocalDateTime startedTs) {
+        this.startedTs = startedTs;
+    }
+
+    public LocalDateTime getFinishedTs() {
+        return finishedTs;
+    }
+
+    public void setFinishedTs(LocalDateTime finishedTs) {
+        this.finishedTs = finishedTs;
+    }
+}
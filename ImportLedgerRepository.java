@@ -0,0 +1,38 @@
+// repository/ImportLedgerRepository.java
+package com.ppi.utility.importer.repository;
+
+import com.ppi.utility.importer.model.ImportLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for interacting with the IMPORT_LEDGER_TBL using Spring Data JPA.
+ */
+@Repository
+public interface ImportLedgerRepository extends JpaRepository<ImportLedgerEntry, Long> {
+
+    /**
+     * Finds the most recent ledger entry for the given file digest whose status is one of the given statuses.
+     * Served by the index on FILE_SHA256.
+     */
+    Optional<ImportLedgerEntry> findFirstByFileSha256AndStatusInOrderByStartedTsDesc(String fileSha256,
+                                                                                     Collection<ImportLedgerEntry.Status> statuses);
+
+    /**
+     * Same as {@link #findFirstByFileSha256AndStatusInOrderByStartedTsDesc}, ignoring the entry with the given id.
+     */
+    Optional<ImportLedgerEntry> findFirstByFileSha256AndStatusInAndLedgerIdNotOrderByStartedTsDesc(String fileSha256,
+                                                                                                  Collection<ImportLedgerEntry.Status> statuses,
+                                                                                                  Long ledgerId);
+
+    /**
+     * Finds the entries for the given file digest with the given status that started before the given time.
+     */
+    List<ImportLedgerEntry> findByFileSha256AndStatusAndStartedTsBefore(String fileSha256, ImportLedgerEntry.Status status,
+                                                                        LocalDateTime startedBefore);
+}
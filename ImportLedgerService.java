@@ -0,0 +1,217 @@
+// service/ImportLedgerService.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.ImportLedgerEntry;
+import com.ppi.utility.importer.repository.ImportLedgerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Service that records every import attempt in the IMPORT_LEDGER_TBL, keyed by the SHA-256 digest
+ * of the file's content, and looks up earlier imports of the same content before a file is parsed.
+ *
+ * The lookup alone cannot stop two imports of the same file that start at the same moment, so the entry an
+ * import starts with also claims the digest in the unique ACTIVE_SHA256 column; the second claim fails with
+ * DuplicateImportException. An IN_PROGRESS entry older than importer.ledger.stale-after-minutes is taken to be
+ * left over from an importer that crashed or lost the database, and is closed when the same content is imported
+ * again: COMPLETED if its rows are in CASE_MASTER_TBL (only the ledger update was lost), FAILED otherwise.
+ */
+@Service
+public class ImportLedgerService {
+
+    // Size of each memory-mapped window the digest is computed over
+    private static final long DIGEST_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    // Entries that block a re-import of the same content
+    private static final EnumSet<ImportLedgerEntry.Status> BLOCKING_STATUSES = EnumSet.of(
+            ImportLedgerEntry.Status.COMPLETED, ImportLedgerEntry.Status.IN_PROGRESS, ImportLedgerEntry.Status.STAGED);
+
+    private static final String COUNT_IMPORTED_ROWS_SQL = "SELECT COUNT(*) FROM CASE_MASTER_TBL WHERE IMPORT_LEDGER_ID = ?";
+
+    private final ImportLedgerRepository importLedgerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long staleAfterMinutes;
+
+    public ImportLedgerService(ImportLedgerRepository importLedgerRepository,
+                               JdbcTemplate jdbcTemplate,
+                               @Value("${importer.ledger.stale-after-minutes:720}") long staleAfterMinutes) {
+        this.importLedgerRepository = importLedgerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.staleAfterMinutes = staleAfterMinutes;
+    }
+
+    /**
+     * Computes the SHA-256 digest of the file's content.
+     * The file is memory-mapped window by window, so the digest streams through the OS page cache
+     * without copying the content onto the Java heap.
+     *
+     * @param file The file to digest.
+     * @return The digest as lower-case hex.
+     * @throws IOException If the file cannot be read.
+     */
+    public String computeSha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM.", e);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += DIGEST_WINDOW_BYTES) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(DIGEST_WINDOW_BYTES, size - position));
+                digest.update(window);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Finds an earlier import of the same content that completed, is still running or waits in local staging.
+     *
+     * @param fileSha256 The digest returned by {@link #computeSha256(File)}.
+     * @return The most recent such ledger entry, if any.
+     */
+    public Optional<ImportLedgerEntry> findPreviousImport(String fileSha256) {
+        return importLedgerRepository.findFirstByFileSha256AndStatusInOrderByStartedTsDesc(fileSha256, BLOCKING_STATUSES);
+    }
+
+    /**
+     * Same as {@link #findPreviousImport(String)}, ignoring the import's own entry.
+     *
+     * @param ownLedgerId The entry of the import doing the check, or null if it has none.
+     */
+    public Optional<ImportLedgerEntry> findPreviousImport(String fileSha256, Long ownLedgerId) {
+        if (ownLedgerId == null) {
+            return findPreviousImport(fileSha256);
+        }
+        return importLedgerRepository.findFirstByFileSha256AndStatusInAndLedgerIdNotOrderByStartedTsDesc(fileSha256,
+                BLOCKING_STATUSES, ownLedgerId);
+    }
+
+    /**
+     * Closes IN_PROGRESS entries of the given content that started more than importer.ledger.stale-after-minutes
+     * ago. No import runs that long, so their importer is gone. An entry whose rows are in CASE_MASTER_TBL did
+     * commit and only lost its final update, so it becomes COMPLETED and keeps its claim; any other becomes
+     * FAILED and releases it.
+     */
+    public void expireStaleEntries(String fileSha256) {
+        LocalDateTime startedBefore = LocalDateTime.now().minusMinutes(staleAfterMinutes);
+        for (ImportLedgerEntry stale : importLedgerRepository.findByFileSha256AndStatusAndStartedTsBefore(fileSha256,
+                ImportLedgerEntry.Status.IN_PROGRESS, startedBefore)) {
+            int importedRows = countImportedRows(stale.getLedgerId());
+            if (importedRows > 0) {
+                System.err.println("Warning: import ledger entry " + stale.getLedgerId() + " of '" + stale.getFileName()
+                        + "' has been IN_PROGRESS since " + stale.getStartedTs() + " but its " + importedRows
+                        + " rows are committed; marking it COMPLETED.");
+                stale.setStatus(ImportLedgerEntry.Status.COMPLETED);
+                stale.setRowCount(importedRows);
+            } else {
+                System.err.println("Warning: import ledger entry " + stale.getLedgerId() + " of '" + stale.getFileName()
+                        + "' has been IN_PROGRESS since " + stale.getStartedTs() + "; marking it FAILED.");
+                stale.setStatus(ImportLedgerEntry.Status.FAILED);
+                stale.setActiveSha256(null);
+            }
+            stale.setFinishedTs(LocalDateTime.now());
+            importLedgerRepository.save(stale);
+        }
+    }
+
+    /**
+     * Counts the rows in CASE_MASTER_TBL written by the import of the given ledger entry. Tells an import whose
+     * ledger update was lost, or whose commit failed with an unknown outcome, from one that never committed.
+     */
+    public int countImportedRows(long ledgerId) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_IMPORTED_ROWS_SQL, Integer.class, ledgerId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Records the start of an import and, unless duplicates are allowed, claims its content. The entry is
+     * committed immediately so that a concurrent submission of the same file sees it.
+     *
+     * @throws DuplicateImportException If another import claimed the same content since it was looked up.
+     */
+    public ImportLedgerEntry recordStarted(String fileSha256, File file, boolean allowDuplicate) {
+        ImportLedgerEntry entry = new ImportLedgerEntry();
+        entry.setFileSha256(fileSha256);
+        entry.setActiveSha256(allowDuplicate ? null : fileSha256);
+        entry.setFileName(file.getName());
+        entry.setFileSize(file.length());
+        entry.setStatus(ImportLedgerEntry.Status.IN_PROGRESS);
+        entry.setStartedTs(LocalDateTime.now());
+        try {
+            return importLedgerRepository.saveAndFlush(entry);
+        } catch (DataIntegrityViolationException e) {
+            // IMPORT_LEDGER_ACTIVE_UK: the other import's entry is committed, so the lookup finds it now
+            ImportLedgerEntry claimedBy = findPreviousImport(fileSha256).orElseThrow(() -> e);
+            throw new DuplicateImportException(file.getName(), claimedBy);
+        }
+    }
+
+    /**
+     * Records the outcome of an import.
+     *
+     * @param entry The entry returned by {@link #recordStarted(String, File, boolean)}.
+     * @param status The final status.
+     * @param rowCount Number of rows imported (0 unless COMPLETED).
+     */
+    public void recordFinished(ImportLedgerEntry entry, ImportLedgerEntry.Status status, int rowCount) {
+        entry.setStatus(status);
+        if (!BLOCKING_STATUSES.contains(status)) {
+            entry.setActiveSha256(null); // The same content may be imported again
+        }
+        entry.setRowCount(rowCount);
+        entry.setFinishedTs(LocalDateTime.now());
+        try {
+            importLedgerRepository.save(entry);
+        } catch (Exception e) {
+            // The import itself has already committed or rolled back; a stale IN_PROGRESS entry only blocks re-imports
+            System.err.println("Error updating import ledger entry " + entry.getLedgerId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the outcome of an import whose rows were staged locally and replayed later by the StagingDrainer.
+     * Updates the entry written when the import started, or creates one if the database was unreachable then.
+     * Runs in the caller's transaction, so the ledger changes together with the replayed rows.
+     *
+     * @param ledgerId The entry written when the import started, or null.
+     * @param allowDuplicate Whether the import was started with allowDuplicate; a new entry then claims nothing.
+     * @param status The final status.
+     * @param rowCount Number of rows imported (0 unless COMPLETED).
+     * @return The saved entry.
+     */
+    public ImportLedgerEntry recordReplayed(Long ledgerId, String fileSha256, String fileName, LocalDateTime stagedTs,
+                               boolean allowDuplicate, ImportLedgerEntry.Status status, int rowCount) {
+        ImportLedgerEntry entry = ledgerId != null ? importLedgerRepository.findById(ledgerId).orElse(null) : null;
+        if (entry == null) {
+            entry = new ImportLedgerEntry();
+            entry.setFileSha256(fileSha256);
+            entry.setActiveSha256(allowDuplicate ? null : fileSha256);
+            entry.setFileName(fileName);
+            entry.setStartedTs(stagedTs);
+        }
+        if (!BLOCKING_STATUSES.contains(status)) {
+            entry.setActiveSha256(null);
+        }
+        entry.setStatus(status);
+        entry.setRowCount(rowCount);
+        entry.setFinishedTs(LocalDateTime.now());
+        return importLedgerRepository.save(entry);
+    }
+}
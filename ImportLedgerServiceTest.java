@@ -0,0 +1,185 @@
+// test/service/ImportLedgerServiceTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.cli.HeadlessImporterApplication;
+import com.ppi.utility.importer.model.ImportLedgerEntry;
+import com.ppi.utility.importer.repository.ImportLedgerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = HeadlessImporterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({HeadlessImporterApplication.PROFILE, "local"})
+class ImportLedgerServiceTest {
+
+    private static final String SHA256 = "a".repeat(64);
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private ImportLedgerService importLedgerService;
+
+    @Autowired
+    private ImportLedgerRepository importLedgerRepository;
+
+    @Autowired
+    private ExcelProcessingService excelProcessingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM IMPORT_LEDGER_TBL");
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_TBL");
+    }
+
+    @Test
+    void secondClaimOfTheSameContentFails() {
+        File file = tempDir.resolve("cases.xlsx").toFile();
+        importLedgerService.recordStarted(SHA256, file, false);
+
+        assertThatThrownBy(() -> importLedgerService.recordStarted(SHA256, file, false))
+                .isInstanceOf(DuplicateImportException.class)
+                .hasMessageContaining("being imported right now");
+    }
+
+    @Test
+    void concurrentClaimsLetExactlyOneImportStart() throws Exception {
+        File file = tempDir.resolve("cases.xlsx").toFile();
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ImportLedgerEntry>> claims = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                claims.add(executor.submit((Callable<ImportLedgerEntry>) () -> {
+                    start.await();
+                    return importLedgerService.recordStarted(SHA256, file, false);
+                }));
+            }
+            start.countDown();
+
+            int started = 0;
+            int duplicates = 0;
+            for (Future<ImportLedgerEntry> claim : claims) {
+                try {
+                    claim.get();
+                    started++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(DuplicateImportException.class);
+                    duplicates++;
+                }
+            }
+            assertThat(started).isEqualTo(1);
+            assertThat(duplicates).isEqualTo(threads - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedImportReleasesItsClaim() {
+        File file = tempDir.resolve("cases.xlsx").toFile();
+        ImportLedgerEntry failed = importLedgerService.recordStarted(SHA256, file, false);
+        importLedgerService.recordFinished(failed, ImportLedgerEntry.Status.FAILED, 0);
+
+        ImportLedgerEntry retry = importLedgerService.recordStarted(SHA256, file, false);
+
+        assertThat(retry.getActiveSha256()).isEqualTo(SHA256);
+        assertThat(importLedgerService.findPreviousImport(SHA256)).map(ImportLedgerEntry::getLedgerId).contains(retry.getLedgerId());
+    }
+
+    @Test
+    void allowedDuplicateClaimsNothing() {
+        File file = tempDir.resolve("cases.xlsx").toFile();
+        ImportLedgerEntry first = importLedgerService.recordStarted(SHA256, file, false);
+        importLedgerService.recordFinished(first, ImportLedgerEntry.Status.COMPLETED, 3);
+
+        ImportLedgerEntry duplicate = importLedgerService.recordStarted(SHA256, file, true);
+
+        assertThat(duplicate.getActiveSha256()).isNull();
+    }
+
+    @Test
+    void staleInProgressEntryNoLongerBlocksTheFile() {
+        ImportLedgerEntry crashed = new ImportLedgerEntry();
+        crashed.setFileSha256(SHA256);
+        crashed.setActiveSha256(SHA256);
+        crashed.setFileName("cases.xlsx");
+        crashed.setStatus(ImportLedgerEntry.Status.IN_PROGRESS);
+        crashed.setStartedTs(LocalDateTime.now().minusDays(2));
+        crashed = importLedgerRepository.save(crashed);
+
+        importLedgerService.expireStaleEntries(SHA256);
+
+        assertThat(importLedgerRepository.findById(crashed.getLedgerId()).orElseThrow().getStatus())
+                .isEqualTo(ImportLedgerEntry.Status.FAILED);
+        assertThat(importLedgerService.findPreviousImport(SHA256)).isEmpty();
+        importLedgerService.recordStarted(SHA256, tempDir.resolve("cases.xlsx").toFile(), false);
+    }
+
+    @Test
+    void staleInProgressEntryWhoseRowsCommittedIsCompleted() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(3));
+        excelProcessingService.processAndSaveExcelData(file, new ImportProgress(), new ImportOptions());
+        String sha256 = importLedgerService.computeSha256(file);
+        // As if the COMPLETED update had been lost after the rows committed, a long time ago
+        jdbcTemplate.update("UPDATE IMPORT_LEDGER_TBL SET STATUS = 'IN_PROGRESS', ROW_COUNT = NULL, FINISHED_TS = NULL, STARTED_TS = ?",
+                LocalDateTime.now().minusDays(2));
+
+        importLedgerService.expireStaleEntries(sha256);
+
+        ImportLedgerEntry entry = importLedgerService.findPreviousImport(sha256).orElseThrow();
+        assertThat(entry.getStatus()).isEqualTo(ImportLedgerEntry.Status.COMPLETED);
+        assertThat(entry.getRowCount()).isEqualTo(3);
+        assertThat(entry.getActiveSha256()).isEqualTo(sha256);
+        assertThatThrownBy(() -> excelProcessingService.processAndSaveExcelData(file, new ImportProgress(), new ImportOptions()))
+                .isInstanceOf(DuplicateImportException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CASE_MASTER_TBL", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void recentInProgressEntryIsKept() {
+        File file = tempDir.resolve("cases.xlsx").toFile();
+        importLedgerService.recordStarted(SHA256, file, false);
+
+        importLedgerService.expireStaleEntries(SHA256);
+
+        assertThat(importLedgerService.findPreviousImport(SHA256)).map(ImportLedgerEntry::getStatus)
+                .contains(ImportLedgerEntry.Status.IN_PROGRESS);
+    }
+
+    @Test
+    void resubmittedFileIsRejectedBeforeAnyRowIsWritten() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(3));
+        File copy = Files.copy(file.toPath(), tempDir.resolve("copy.xlsx")).toFile();
+        excelProcessingService.processAndSaveExcelData(file, new ImportProgress(), new ImportOptions());
+
+        assertThatThrownBy(() -> excelProcessingService.processAndSaveExcelData(copy, new ImportProgress(), new ImportOptions()))
+                .isInstanceOf(DuplicateImportException.class);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CASE_MASTER_TBL", Integer.class)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,67 @@
+// service/ImportOptions.java
+package com.ppi.utility.importer.service;
+
+/**
+ * Per-import settings passed to ExcelProcessingService.
+ * The defaults describe a normal import of a new file.
+ */
+public class ImportOptions {
+
+    // Import even if the ledger shows the same file content was already imported
+    private boolean allowDuplicate = false;
+
+    // Write only rows that are new or changed since the last delta import of the same file lineage
+    private boolean deltaImport = false;
+
+    // File lineage for delta imports; null derives it from the file name
+    private String lineageKey = null;
+
+    // Engine to read the file with; null lets ImportEngineSelector choose from the file's size
+    private ImportEngine engine = null;
+
+    // Digest and rows parsed in the background when the file was selected; null reads the file during the import
+    private SpeculativeParse speculativeParse = null;
+
+    public ImportOptions() {
+    }
+
+    public boolean isAllowDuplicate() {
+        return allowDuplicate;
+    }
+
+    public void setAllowDuplicate(boolean allowDuplicate) {
+        this.allowDuplicate = allowDuplicate;
+    }
+
+    public boolean isDeltaImport() {
+        return deltaImport;
+    }
+
+    public void setDeltaImport(boolean deltaImport) {
+        this.deltaImport = deltaImport;
+    }
+
+    public String getLineageKey() {
+        return lineageKey;
+    }
+
+    public void setLineageKey(String lineageKey) {
+        this.lineageKey = lineageKey;
+    }
+
+    public ImportEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(ImportEngine engine) {
+        this.engine = engine;
+    }
+
+    public SpeculativeParse getSpeculativeParse() {
+        return speculativeParse;
+    }
+
+    public void setSpeculativeParse(SpeculativeParse speculativeParse) {
+        this.speculativeParse = speculativeParse;
+    }
+}
@@ -0,0 +1,19 @@
+// service/ImportPlan.java
+package com.ppi.utility.importer.service;
+
+/**
+ * The engine chosen for a file and the heap the import is expected to need with it.
+ *
+ * @param engine The engine to read the file with.
+ * @param estimatedHeapBytes Heap the import is expected to hold at its peak (parsing plus parsed rows).
+ * @param estimatedRows Data rows expected in the file, from the sheet's dimension or its size.
+ */
+public record ImportPlan(ImportEngine engine, long estimatedHeapBytes, long estimatedRows) {
+
+    /**
+     * @return A short description for the job list and the console, e.g. "STREAMING, ~120 MB heap".
+     */
+    public String describe() {
+        return engine + ", ~" + Math.max(1, estimatedHeapBytes / (1024 * 1024)) + " MB heap";
+    }
+}
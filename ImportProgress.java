@@ -0,0 +1,76 @@
+// service/ImportProgress.java
+package com.ppi.utility.importer.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks how far a running import has got and carries its cancellation request.
+ * One instance is shared between the thread that started the import (e.g. the UI)
+ * and the threads doing the work; all methods are thread-safe.
+ *
+ * Cancellation is cooperative: the importer calls {@link #checkCancelled(String)} between rows and batches
+ * and stops by throwing ImportCancelledException, which rolls back everything written so far.
+ */
+public class ImportProgress {
+
+    private volatile boolean cancelled;
+    private final AtomicInteger rowsParsed = new AtomicInteger();
+    private final AtomicInteger rowsStaged = new AtomicInteger();
+    private final AtomicInteger rowsWritten = new AtomicInteger();
+
+    /**
+     * Requests cancellation. The import stops at its next cancellation check.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throws ImportCancelledException if cancellation has been requested.
+     *
+     * @param stage Short description of the current stage, used in the exception message.
+     */
+    public void checkCancelled(String stage) {
+        if (cancelled) {
+            throw new ImportCancelledException(stage, rowsParsed.get(), rowsWritten.get());
+        }
+    }
+
+    public void addRowsParsed(int rows) {
+        rowsParsed.addAndGet(rows);
+    }
+
+    public void addRowsStaged(int rows) {
+        rowsStaged.addAndGet(rows);
+    }
+
+    public void addRowsWritten(int rows) {
+        rowsWritten.addAndGet(rows);
+    }
+
+    /**
+     * @return Number of data rows read from the file so far.
+     */
+    public int getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    /**
+     * @return Number of rows the parallel writers have put into CASE_MASTER_STG so far. They only count as
+     * written once the batch is published to CASE_MASTER_TBL.
+     */
+    public int getRowsStaged() {
+        return rowsStaged.get();
+    }
+
+    /**
+     * @return Number of rows sent to CASE_MASTER_TBL so far (not necessarily committed).
+     */
+    public int getRowsWritten() {
+        return rowsWritten.get();
+    }
+}
@@ -0,0 +1,139 @@
+// service/ImportReconciliationService.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Service that checks, after an import, that CASE_MASTER_TBL holds what was parsed from the file.
+ * Uses a single aggregate query per import keyed on the import's ledger entry (IMPORT_LEDGER_ID)
+ * instead of reading rows back, so the check costs one round trip regardless of the file size.
+ *
+ * The checksum is the sum of a per-row hash of the reference pair: the first 7 bytes of the MD5 of
+ * NVL(THIRD_PARTY_REFERENCE_1, '') || '|' || NVL(THIRD_PARTY_REFERENCE_2, ''), read as an unsigned number.
+ * The database computes it with STANDARD_HASH (Oracle) or HASH (H2), this class with MessageDigest over the
+ * UTF-8 bytes of the same string, so any altered reference changes the sum.
+ */
+@Service
+public class ImportReconciliationService {
+
+    // NVL / '||' keep NULL references (Oracle stores '' as NULL) equal to the empty strings used on the Java side
+    private static final String REFERENCE_PAIR = "NVL(THIRD_PARTY_REFERENCE_1, '') || '|' || NVL(THIRD_PARTY_REFERENCE_2, '')";
+
+    // Leading 7 bytes of the MD5, so each row adds less than 2^56
+    private static final int ROW_HASH_BYTES = 7;
+
+    private static final String ORACLE_ROW_HASH =
+            "TO_NUMBER(SUBSTR(RAWTOHEX(STANDARD_HASH(" + REFERENCE_PAIR + ", 'MD5')), 1, " + 2 * ROW_HASH_BYTES + "), '"
+                    + "X".repeat(2 * ROW_HASH_BYTES) + "')";
+
+    // X'00' widens the bytes to a non-negative 8-byte BIGINT
+    private static final String H2_ROW_HASH =
+            "CAST(X'00' || SUBSTRING(HASH('MD5', " + REFERENCE_PAIR + "), 1, " + ROW_HASH_BYTES + ") AS BIGINT)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private volatile String rowHashExpression;
+
+    public ImportReconciliationService(JdbcTemplate jdbcTemplate,
+                                       @Value("${importer.reconciliation.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Compares the parsed workbook with the rows stored by its import (see ParsedWorkbook.setImportLedgerId()).
+     * A workbook without a ledger entry is compared with all rows of its SUBMITTED_TS, where rows from other
+     * imports with the same SUBMITTED_TS are counted too and show up as a mismatch.
+     *
+     * @param parsedWorkbook The rows that were imported.
+     * @return The comparison, or null if reconciliation is disabled (importer.reconciliation.enabled=false).
+     */
+    public ReconciliationResult reconcile(ParsedWorkbook parsedWorkbook) {
+        if (!enabled) {
+            return null;
+        }
+
+        Set<String> distinctReferences = new HashSet<>();
+        BigInteger referenceChecksum = BigInteger.ZERO;
+        MessageDigest md5 = md5();
+        for (CaseMaster caseMaster : parsedWorkbook.getRows()) {
+            String referencePair = nullToEmpty(caseMaster.getThirdPartyReference1()) + "|" + nullToEmpty(caseMaster.getThirdPartyReference2());
+            distinctReferences.add(referencePair);
+            referenceChecksum = referenceChecksum.add(BigInteger.valueOf(rowHash(md5, referencePair)));
+        }
+        long parsedDistinctReferences = distinctReferences.size();
+        BigInteger parsedReferenceChecksum = referenceChecksum;
+
+        Long importLedgerId = parsedWorkbook.getImportLedgerId();
+        String sql = "SELECT COUNT(*), COUNT(DISTINCT " + REFERENCE_PAIR + "), NVL(SUM(" + rowHashExpression() + "), 0) "
+                + "FROM CASE_MASTER_TBL WHERE " + (importLedgerId != null ? "IMPORT_LEDGER_ID = ?" : "SUBMITTED_TS = ?");
+        Object key = importLedgerId != null ? importLedgerId : Timestamp.valueOf(parsedWorkbook.getSubmittedTs());
+
+        ReconciliationResult result = jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+            BigDecimal persistedChecksum = rs.getBigDecimal(3);
+            return new ReconciliationResult(
+                    parsedWorkbook.getSubmittedTs(), importLedgerId,
+                    parsedWorkbook.size(), rs.getLong(1),
+                    parsedDistinctReferences, rs.getLong(2),
+                    parsedReferenceChecksum, persistedChecksum != null ? persistedChecksum.toBigInteger() : BigInteger.ZERO);
+        }, key);
+
+        if (result != null) {
+            if (result.matches()) {
+                System.out.println(result.describe());
+            } else {
+                System.err.println(result.describe());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The per-row hash in the SQL dialect of the connected database, looked up once.
+     */
+    private String rowHashExpression() {
+        if (rowHashExpression == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            rowHashExpression = product != null && product.startsWith("H2") ? H2_ROW_HASH : ORACLE_ROW_HASH;
+        }
+        return rowHashExpression;
+    }
+
+    /**
+     * The same value as the SQL row hash: the leading bytes of the MD5 of the UTF-8 string as an unsigned number.
+     */
+    private static long rowHash(MessageDigest md5, String referencePair) {
+        byte[] hash = md5.digest(referencePair.getBytes(StandardCharsets.UTF_8));
+        long value = 0;
+        for (int i = 0; i < ROW_HASH_BYTES; i++) {
+            value = (value << 8) | (hash[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available in this JVM.", e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
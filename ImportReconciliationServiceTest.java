@@ -0,0 +1,80 @@
+// test/service/ImportReconciliationServiceTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.cli.HeadlessImporterApplication;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = HeadlessImporterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({HeadlessImporterApplication.PROFILE, "local"})
+class ImportReconciliationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private ExcelProcessingService excelProcessingService;
+
+    @Autowired
+    private ImportReconciliationService importReconciliationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM IMPORT_LEDGER_TBL");
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_TBL");
+    }
+
+    @Test
+    void importedFileReconciles() throws Exception {
+        List<String[]> rows = TestWorkbooks.people(20);
+        rows.get(3)[1] = null; // NULL references hash like empty strings
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, rows);
+
+        ImportResult result = excelProcessingService.processAndSaveExcelData(file, new ImportProgress(), new ImportOptions());
+
+        assertThat(result.getReconciliation().matches()).isTrue();
+        assertThat(result.getReconciliation().getImportLedgerId()).isNotNull();
+    }
+
+    @Test
+    void anotherImportWithTheSameSubmittedTsDoesNotCauseAMismatch() throws Exception {
+        File first = TestWorkbooks.write(tempDir, "first.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(5));
+        File second = TestWorkbooks.write(tempDir, "second.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(8).subList(5, 8));
+        excelProcessingService.processAndSaveExcelData(first, new ImportProgress(), new ImportOptions());
+
+        ImportResult result = excelProcessingService.processAndSaveExcelData(second, new ImportProgress(), new ImportOptions());
+
+        assertThat(result.getReconciliation().matches()).isTrue();
+        assertThat(result.getReconciliation().getPersistedRows()).isEqualTo(3);
+    }
+
+    @Test
+    void alteredReferenceOfTheSameLengthIsAMismatch() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(5));
+        ParsedWorkbook parsed = excelProcessingService.parseExcelDataStreaming(file, new ImportProgress());
+        ImportResult result = excelProcessingService.processAndSaveExcelData(file, new ImportProgress(), new ImportOptions());
+        parsed.setImportLedgerId(result.getReconciliation().getImportLedgerId());
+
+        // Same row count, same number of distinct pairs and same total length as before
+        jdbcTemplate.update("UPDATE CASE_MASTER_TBL SET THIRD_PARTY_REFERENCE_1 = 'REF9' WHERE THIRD_PARTY_REFERENCE_1 = 'REF1'");
+
+        ReconciliationResult reconciliation = importReconciliationService.reconcile(parsed);
+        assertThat(reconciliation.getPersistedRows()).isEqualTo(5);
+        assertThat(reconciliation.matches()).isFalse();
+    }
+}
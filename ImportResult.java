@@ -0,0 +1,113 @@
+// service/ImportResult.java
+package com.ppi.utility.importer.service;
+
+/**
+ * Result of a completed import: the number of rows written and, when enabled,
+ * the post-import reconciliation against CASE_MASTER_TBL.
+ * Delta imports carry their new/changed/unchanged counts instead; they are not reconciled,
+ * because unchanged rows keep the SUBMITTED_TS of the version that last wrote them.
+ * Imports the database could not take are staged locally; they report the segment that holds their rows.
+ * Every result carries the ledger entry whose id tags the rows in CASE_MASTER_TBL, so they can be exported.
+ */
+public class ImportResult {
+
+    private final int rowsImported;
+    private final ReconciliationResult reconciliation;
+    private final DeltaImportResult delta;
+    private final String stagedSegmentName;
+    private final int rowsStaged;
+    private final Long importLedgerId;
+
+    public ImportResult(int rowsImported, ReconciliationResult reconciliation, Long importLedgerId) {
+        this.rowsImported = rowsImported;
+        this.reconciliation = reconciliation;
+        this.delta = null;
+        this.stagedSegmentName = null;
+        this.rowsStaged = 0;
+        this.importLedgerId = importLedgerId;
+    }
+
+    public ImportResult(DeltaImportResult delta, Long importLedgerId) {
+        this.rowsImported = delta.getRowsWritten();
+        this.reconciliation = null;
+        this.delta = delta;
+        this.stagedSegmentName = null;
+        this.rowsStaged = 0;
+        this.importLedgerId = importLedgerId;
+    }
+
+    /**
+     * Result of an import whose rows went to the LocalStagingStore. Only the segment's name and row count are kept,
+     * not its rows.
+     */
+    public ImportResult(StagedSegment staged) {
+        this.rowsImported = 0;
+        this.reconciliation = null;
+        this.delta = null;
+        this.stagedSegmentName = staged.path().getFileName().toString();
+        this.rowsStaged = staged.workbook().size();
+        this.importLedgerId = staged.ledgerId();
+    }
+
+    public int getRowsImported() {
+        return rowsImported;
+    }
+
+    /**
+     * @return The reconciliation outcome, or null if reconciliation is disabled or could not run.
+     */
+    public ReconciliationResult getReconciliation() {
+        return reconciliation;
+    }
+
+    /**
+     * @return The delta counts, or null for a full import.
+     */
+    public DeltaImportResult getDelta() {
+        return delta;
+    }
+
+    /**
+     * @return The IMPORT_LEDGER_ID of the rows this import wrote (or will write once staged rows are replayed),
+     *         or null if the rows were staged before the ledger could be reached.
+     */
+    public Long getImportLedgerId() {
+        return importLedgerId;
+    }
+
+    /**
+     * @return true if the rows wait in a local staging segment instead of CASE_MASTER_TBL.
+     */
+    public boolean isStaged() {
+        return stagedSegmentName != null;
+    }
+
+    /**
+     * @return The name of the staging segment holding the rows, or null unless {@link #isStaged()}.
+     */
+    public String getStagedSegmentName() {
+        return stagedSegmentName;
+    }
+
+    /**
+     * @return true unless reconciliation ran and found a mismatch.
+     */
+    public boolean isReconciled() {
+        return reconciliation == null || reconciliation.matches();
+    }
+
+    /**
+     * @return A one-line summary suitable for the UI or the console.
+     */
+    public String describe() {
+        if (delta != null) {
+            return delta.describe();
+        }
+        if (stagedSegmentName != null) {
+            return "Database unavailable: " + rowsStaged + " rows staged locally in " + stagedSegmentName
+                    + "; they are written to CASE_MASTER_TBL once the database is reachable.";
+        }
+        String text = rowsImported + " rows imported.";
+        return reconciliation != null ? text + " " + reconciliation.describe() : text;
+    }
+}
@@ -0,0 +1,150 @@
+// server/ImportUploadController.java
+package com.ppi.utility.importer.server;
+
+import com.ppi.utility.importer.service.ImportJob;
+import com.ppi.utility.importer.service.ImportJobService;
+import com.ppi.utility.importer.service.ImportOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * HTTP endpoints of the upload server:
+ *   POST   /imports       multipart field "file" (.xlsx), optional allowDuplicate, delta and lineage parameters;
+ *                         queues an import and answers 202 with the job and its Location
+ *   GET    /imports       queued, running and recently finished jobs
+ *   GET    /imports/{id}  status of one job
+ *   DELETE /imports/{id}  cancels a job
+ * The cases an import wrote can be paged through with CaseQueryController.
+ *
+ * Uploads are never held in memory: with spring.servlet.multipart.file-size-threshold=0 the servlet container
+ * streams the part to disk as it arrives, and transferTo moves that file into a directory of its own, keeping
+ * the original file name for the import ledger and delta lineage. A .xlsx file is a zip whose directory is at
+ * the end, so it cannot be parsed before the upload is complete; the job is queued as soon as it is. The file
+ * is deleted once the job has finished.
+ */
+@RestController
+@RequestMapping("/imports")
+@Profile(ImporterServerApplication.PROFILE)
+public class ImportUploadController {
+
+    private static final String UPLOAD_DIRECTORY_PREFIX = "upload-";
+
+    private final ImportJobService importJobService;
+    private final Path uploadDirectory;
+
+    public ImportUploadController(ImportJobService importJobService,
+                                  @Value("${importer.server.upload-directory:}") String uploadDirectory) throws IOException {
+        this.importJobService = importJobService;
+        this.uploadDirectory = uploadDirectory.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "ppi-importer-uploads")
+                : Path.of(uploadDirectory);
+        Files.createDirectories(this.uploadDirectory);
+        importJobService.addListener(this::deleteFinishedUpload);
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobStatus> upload(@RequestParam("file") MultipartFile file,
+                                                  @RequestParam(name = "allowDuplicate", defaultValue = "false") boolean allowDuplicate,
+                                                  @RequestParam(name = "delta", defaultValue = "false") boolean delta,
+                                                  @RequestParam(name = "lineage", required = false) String lineage) {
+        String fileName = safeFileName(file.getOriginalFilename());
+        if (!fileName.toLowerCase(Locale.ROOT).endsWith(".xlsx")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only .xlsx files can be imported, got '" + fileName + "'.");
+        }
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, fileName + " is empty.");
+        }
+
+        File spooled;
+        try {
+            spooled = Files.createTempDirectory(uploadDirectory, UPLOAD_DIRECTORY_PREFIX).resolve(fileName).toFile();
+            file.transferTo(spooled);
+        } catch (IOException e) {
+            System.err.println("Could not store upload " + fileName + ": " + e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not store the upload: " + e.getMessage());
+        }
+        System.out.println("Received upload " + fileName + " (" + (spooled.length() / 1024) + " KB).");
+
+        ImportOptions options = new ImportOptions();
+        options.setAllowDuplicate(allowDuplicate);
+        options.setDeltaImport(delta);
+        options.setLineageKey(lineage);
+        ImportJob job;
+        try {
+            job = importJobService.submit(spooled, options);
+        } catch (IllegalStateException e) {
+            deleteUpload(spooled);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/imports/" + job.getId()))
+                .body(ImportJobStatus.of(job));
+    }
+
+    @GetMapping
+    public List<ImportJobStatus> list() {
+        return importJobService.getJobs().stream().map(ImportJobStatus::of).toList();
+    }
+
+    @GetMapping("/{id}")
+    public ImportJobStatus status(@PathVariable("id") long id) {
+        return ImportJobStatus.of(findJob(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ImportJobStatus cancel(@PathVariable("id") long id) {
+        ImportJob job = findJob(id);
+        importJobService.cancel(job);
+        return ImportJobStatus.of(job);
+    }
+
+    private ImportJob findJob(long id) {
+        return importJobService.findJob(id).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "No import job #" + id + "."));
+    }
+
+    /**
+     * Keeps only the last path element of the client's file name and replaces characters that are not safe in
+     * a file name.
+     */
+    private static String safeFileName(String originalFilename) {
+        String name = originalFilename == null ? "" : originalFilename.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._ -]", "_");
+        return name.isBlank() || name.startsWith(".") ? "upload" + name : name;
+    }
+
+    private void deleteFinishedUpload(ImportJob job) {
+        if (job.getStatus().isFinished() && job.getFile().toPath().startsWith(uploadDirectory)) {
+            deleteUpload(job.getFile());
+        }
+    }
+
+    private void deleteUpload(File spooled) {
+        try {
+            Files.deleteIfExists(spooled.toPath());
+            Files.deleteIfExists(spooled.toPath().getParent());
+        } catch (IOException e) {
+            System.err.println("Could not delete upload " + spooled + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// test/server/ImportUploadControllerTest.java
+package com.ppi.utility.importer.server;
+
+import com.jayway.jsonpath.JsonPath;
+import com.ppi.utility.importer.service.TestWorkbooks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Only compiled and run with mvn -Pserver, like the server package itself.
+ */
+@SpringBootTest(classes = ImporterServerApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles({ImporterServerApplication.PROFILE, "local"})
+class ImportUploadControllerTest {
+
+    @TempDir
+    static Path uploadDirectory;
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void uploadDirectory(DynamicPropertyRegistry registry) {
+        registry.add("importer.server.upload-directory", uploadDirectory::toString);
+    }
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM IMPORT_LEDGER_TBL");
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_TBL");
+    }
+
+    @Test
+    void uploadIsImportedAndDeletedAfterwards() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(12));
+
+        MvcResult accepted = mockMvc.perform(multipart("/imports").file(new MockMultipartFile("file", "cases.xlsx",
+                        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", Files.readAllBytes(file.toPath()))))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn();
+        String location = accepted.getResponse().getHeader("Location");
+        int id = JsonPath.read(accepted.getResponse().getContentAsString(), "$.id");
+        assertThat(location).isEqualTo("/imports/" + id);
+
+        String finished = awaitFinished(location);
+        assertThat(JsonPath.<String>read(finished, "$.status")).as(finished).isEqualTo("SUCCEEDED");
+        assertThat(JsonPath.<Integer>read(finished, "$.rowsProcessed")).isEqualTo(12);
+        assertThat(JsonPath.<Boolean>read(finished, "$.reconciled")).isTrue();
+        awaitUploadsDeleted();
+
+        mockMvc.perform(get("/cases").param("submittedTs", "2024-05-01T10:15:00").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cases.length()").value(5))
+                .andExpect(jsonPath("$.cases[0].thirdPartyReference1").value("REF0"))
+                .andExpect(jsonPath("$.nextAfter").isNotEmpty());
+    }
+
+    @Test
+    void uploadThatIsNotXlsxIsRejected() throws Exception {
+        mockMvc.perform(multipart("/imports").file(new MockMultipartFile("file", "cases.csv", "text/csv",
+                        "REF0,B0,SMITH0,JOHN".getBytes())))
+                .andExpect(status().isBadRequest());
+
+        assertThat(uploadDirectory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void unknownJobIsNotFound() throws Exception {
+        mockMvc.perform(get("/imports/999999")).andExpect(status().isNotFound());
+    }
+
+    private String awaitFinished(String location) throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (true) {
+            String body = mockMvc.perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+            String jobStatus = JsonPath.read(body, "$.status");
+            if (!List.of("QUEUED", "RUNNING").contains(jobStatus) || System.currentTimeMillis() > deadline) {
+                return body;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static void awaitUploadsDeleted() throws InterruptedException {
+        // The listener that deletes the upload runs right after the job has finished
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (uploadDirectory.toFile().list().length > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(uploadDirectory.toFile().list()).isEmpty();
+    }
+}
@@ -0,0 +1,263 @@
+// cli/ImporterCommandLineRunner.java
+package com.ppi.utility.importer.cli;
+
+import com.ppi.utility.importer.model.CaseReferenceView;
+import com.ppi.utility.importer.model.CaseSummary;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import com.ppi.utility.importer.repository.CaseMasterRepository;
+import com.ppi.utility.importer.service.CaseMasterExportService;
+import com.ppi.utility.importer.service.DuplicateImportException;
+import com.ppi.utility.importer.service.ExcelProcessingService;
+import com.ppi.utility.importer.service.ImportOptions;
+import com.ppi.utility.importer.service.ImportProgress;
+import com.ppi.utility.importer.service.ImportResult;
+import com.ppi.utility.importer.service.PersonMatch;
+import com.ppi.utility.importer.service.PersonMatchingService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs the command given on the command line of the HeadlessImporterApplication:
+ * --import=FILE [--allow-duplicate] [--delta [--lineage=KEY]],
+ * --export=FILE [--submitted-ts=yyyy-MM-ddTHH:mm[:ss] | --import-ledger-id=ID], --find-reference=REF,
+ * --find-person=LAST_NAME --date-of-birth=yyyy-MM-dd, --list-cases=yyyy-MM-ddTHH:mm[:ss] or --match=FILE.
+ *
+ * Exit codes: 0 success, 1 failure, 2 invalid arguments, 3 duplicate file, 4 imported but not reconciled,
+ * 5 no case found.
+ */
+@Component
+@Profile(HeadlessImporterApplication.PROFILE)
+public class ImporterCommandLineRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private final ExcelProcessingService excelProcessingService;
+    private final CaseMasterExportService caseMasterExportService;
+    private final CaseMasterRepository caseMasterRepository;
+    private final PersonMatchingService personMatchingService;
+    private final TransactionTemplate readOnlyTransaction;
+    private int exitCode;
+
+    public ImporterCommandLineRunner(ExcelProcessingService excelProcessingService,
+                                     CaseMasterExportService caseMasterExportService,
+                                     CaseMasterRepository caseMasterRepository,
+                                     PersonMatchingService personMatchingService,
+                                     PlatformTransactionManager transactionManager) {
+        this.excelProcessingService = excelProcessingService;
+        this.caseMasterExportService = caseMasterExportService;
+        this.caseMasterRepository = caseMasterRepository;
+        this.personMatchingService = personMatchingService;
+        // Streaming queries need an open transaction for as long as the stream is read
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String importFile = singleValue(args, "import");
+        String exportFile = singleValue(args, "export");
+        String reference = singleValue(args, "find-reference");
+        String matchFile = singleValue(args, "match");
+        String lastName = singleValue(args, "find-person");
+        String listSubmittedTs = singleValue(args, "list-cases");
+        int commands = (importFile != null ? 1 : 0) + (exportFile != null ? 1 : 0) + (reference != null ? 1 : 0)
+                + (matchFile != null ? 1 : 0) + (lastName != null ? 1 : 0) + (listSubmittedTs != null ? 1 : 0);
+        if (commands != 1) {
+            printUsage();
+            exitCode = 2;
+            return;
+        }
+        if (importFile != null) {
+            ImportOptions options = new ImportOptions();
+            options.setAllowDuplicate(args.containsOption("allow-duplicate"));
+            options.setDeltaImport(args.containsOption("delta"));
+            options.setLineageKey(singleValue(args, "lineage"));
+            runImport(new File(importFile), options);
+        } else if (exportFile != null) {
+            runExport(new File(exportFile), singleValue(args, "submitted-ts"), singleValue(args, "import-ledger-id"));
+        } else if (reference != null) {
+            findReference(reference);
+        } else if (lastName != null) {
+            findPerson(lastName, singleValue(args, "date-of-birth"));
+        } else if (listSubmittedTs != null) {
+            listCases(listSubmittedTs);
+        } else {
+            runMatch(new File(matchFile));
+        }
+    }
+
+    private void runImport(File file, ImportOptions options) {
+        ImportProgress progress = new ImportProgress();
+        // Ctrl+C cancels the import, so it rolls back instead of leaving a partial batch
+        Thread cancelOnExit = new Thread(progress::cancel, "import-cancel-on-exit");
+        Runtime.getRuntime().addShutdownHook(cancelOnExit);
+        try {
+            ImportResult result = excelProcessingService.processAndSaveExcelData(file, progress, options);
+            System.out.println(result.describe());
+            if (result.getImportLedgerId() != null) {
+                System.out.println("Import ledger entry " + result.getImportLedgerId() + "; export its cases with --import-ledger-id="
+                        + result.getImportLedgerId() + ".");
+            }
+            exitCode = result.isReconciled() ? 0 : 4;
+        } catch (DuplicateImportException e) {
+            System.err.println(e.getMessage() + " Run again with --allow-duplicate to import it anyway.");
+            exitCode = 3;
+        } catch (Exception e) {
+            System.err.println("Import of " + file.getName() + " failed: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(cancelOnExit);
+            } catch (IllegalStateException e) {
+                // Already shutting down
+            }
+        }
+    }
+
+    private void runExport(File file, String submittedTsArgument, String importLedgerIdArgument) {
+        if (submittedTsArgument != null && importLedgerIdArgument != null) {
+            System.err.println("--submitted-ts and --import-ledger-id cannot be combined.");
+            exitCode = 2;
+            return;
+        }
+        Long importLedgerId = null;
+        if (importLedgerIdArgument != null) {
+            try {
+                importLedgerId = Long.parseLong(importLedgerIdArgument);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid --import-ledger-id '" + importLedgerIdArgument + "', expected the number of an import ledger entry.");
+                exitCode = 2;
+                return;
+            }
+        }
+        LocalDateTime submittedTs = null;
+        if (submittedTsArgument != null) {
+            try {
+                submittedTs = LocalDateTime.parse(submittedTsArgument);
+            } catch (DateTimeParseException e) {
+                System.err.println("Invalid --submitted-ts '" + submittedTsArgument + "', expected e.g. 2024-05-01T10:15:00.");
+                exitCode = 2;
+                return;
+            }
+        }
+        try {
+            if (importLedgerId != null) {
+                caseMasterExportService.exportImport(file, importLedgerId);
+            } else {
+                caseMasterExportService.export(file, submittedTs);
+            }
+            exitCode = 0;
+        } catch (Exception e) {
+            System.err.println("Export to " + file.getName() + " failed: " + e.getMessage());
+            exitCode = 1;
+        }
+    }
+
+    /**
+     * Prints the cases whose first or second third-party reference equals the given value.
+     */
+    private void findReference(String reference) {
+        List<CaseReferenceView> matches = new ArrayList<>(caseMasterRepository.findByThirdPartyReference1(reference));
+        matches.addAll(caseMasterRepository.findByThirdPartyReference2(reference));
+        for (CaseReferenceView match : matches) {
+            System.out.println(match.getCaseId() + " [" + match.getThirdPartyReference1() + "/" + match.getThirdPartyReference2()
+                    + "] submitted " + match.getSubmittedTs());
+        }
+        System.out.println(matches.size() + " case(s) found for reference '" + reference + "'.");
+        exitCode = matches.isEmpty() ? 5 : 0;
+    }
+
+    /**
+     * Prints the cases with the given last name (case-insensitive) and date of birth.
+     */
+    private void findPerson(String lastName, String dateOfBirthArgument) {
+        LocalDate dateOfBirth;
+        try {
+            dateOfBirth = LocalDate.parse(dateOfBirthArgument != null ? dateOfBirthArgument : "");
+        } catch (DateTimeParseException e) {
+            System.err.println("--find-person needs --date-of-birth=yyyy-MM-dd, got '" + dateOfBirthArgument + "'.");
+            exitCode = 2;
+            return;
+        }
+        List<CaseSummary> matches = caseMasterRepository.findSummariesByLastNameAndDateOfBirth(lastName, dateOfBirth);
+        for (CaseSummary match : matches) {
+            System.out.println(match.describe());
+        }
+        System.out.println(matches.size() + " case(s) found for " + lastName + " born " + dateOfBirth + ".");
+        exitCode = matches.isEmpty() ? 5 : 0;
+    }
+
+    /**
+     * Prints every case with the given SUBMITTED_TS, streamed from the database instead of read into a list.
+     */
+    private void listCases(String submittedTsArgument) {
+        LocalDateTime submittedTs;
+        try {
+            submittedTs = LocalDateTime.parse(submittedTsArgument);
+        } catch (DateTimeParseException e) {
+            System.err.println("Invalid --list-cases '" + submittedTsArgument + "', expected e.g. 2024-05-01T10:15:00.");
+            exitCode = 2;
+            return;
+        }
+        Long listed = readOnlyTransaction.execute(status -> {
+            try (Stream<CaseSummary> cases = caseMasterRepository.streamSummariesBySubmittedTs(submittedTs)) {
+                // Not peek().count(): count() may skip the pipeline, and with it the printing, when it can size the stream
+                return cases.mapToLong(summary -> {
+                    System.out.println(summary.describe());
+                    return 1;
+                }).sum();
+            }
+        });
+        System.out.println(listed + " case(s) found for SUBMITTED_TS " + submittedTs + ".");
+        exitCode = listed == null || listed == 0 ? 5 : 0;
+    }
+
+    /**
+     * Prints the rows of the file whose person already has a case, without importing anything.
+     */
+    private void runMatch(File file) {
+        try {
+            ParsedWorkbook parsedWorkbook = excelProcessingService.parseExcelDataStreaming(file, new ImportProgress());
+            List<PersonMatch> matches = personMatchingService.match(parsedWorkbook);
+            for (PersonMatch match : matches) {
+                System.out.println(match.describe());
+            }
+            System.out.println(matches.size() + " of " + parsedWorkbook.size() + " row(s) of " + file.getName()
+                    + " match an existing case.");
+            exitCode = 0;
+        } catch (Exception e) {
+            System.err.println("Matching " + file.getName() + " failed: " + e.getMessage());
+            exitCode = 1;
+        }
+    }
+
+    private static String singleValue(ApplicationArguments args, String option) {
+        List<String> values = args.getOptionValues(option);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: --import=FILE [--allow-duplicate] [--delta [--lineage=KEY]]");
+        System.err.println("       --export=FILE [--submitted-ts=yyyy-MM-ddTHH:mm[:ss] | --import-ledger-id=ID]");
+        System.err.println("       --find-reference=REF");
+        System.err.println("       --find-person=LAST_NAME --date-of-birth=yyyy-MM-dd");
+        System.err.println("       --list-cases=yyyy-MM-ddTHH:mm[:ss]");
+        System.err.println("       --match=FILE");
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
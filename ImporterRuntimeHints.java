@@ -0,0 +1,83 @@
+// cli/ImporterRuntimeHints.java
+package com.ppi.utility.importer.cli;
+
+import com.ppi.utility.importer.model.CaseReferenceView;
+import com.ppi.utility.importer.model.CaseSummary;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.projection.TargetAware;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Reachability metadata for the native image of the HeadlessImporterApplication (mvn -Pnative package).
+ *
+ * Spring AOT already covers the beans, the JPA entities and the repositories, the GraalVM metadata repository
+ * covers Hibernate and HikariCP, and ojdbc11 ships its own META-INF/native-image configuration. What is left is
+ * POI: XMLBeans finds the OOXML schema types through .xsb resources and creates their *Impl classes by
+ * reflection, and POI loads a few data files from the classpath. The schema classes are listed from the
+ * classpath while the AOT step runs, so the hints follow the poi-ooxml-lite version in use.
+ */
+public class ImporterRuntimeHints implements RuntimeHintsRegistrar {
+
+    // Schema packages reached when reading and writing .xlsx files: workbook, sheets, shared strings, styles,
+    // theme (drawingml), relationships and document properties
+    private static final String[] SCHEMA_PACKAGES = {
+            "org/openxmlformats/schemas/spreadsheetml/x2006/main",
+            "org/openxmlformats/schemas/drawingml/x2006/main",
+            "org/openxmlformats/schemas/officeDocument/x2006/sharedTypes",
+            "org/openxmlformats/schemas/officeDocument/x2006/relationships",
+            "org/openxmlformats/schemas/officeDocument/x2006/extendedProperties",
+            "org/openxmlformats/schemas/officeDocument/x2006/customProperties",
+            "org/openxmlformats/schemas/officeDocument/x2006/docPropsVTypes"};
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // XMLBeans type system of poi-ooxml-lite and XMLBeans' own built-in types and messages
+        hints.resources().registerPattern("org/apache/poi/schemas/ooxml/**/*.xsb");
+        hints.resources().registerPattern("org/apache/xmlbeans/**/*.xsb");
+        hints.resources().registerPattern("org/apache/xmlbeans/**/*.properties");
+        hints.reflection().registerType(TypeReference.of("org.apache.poi.schemas.ooxml.system.ooxml.TypeSystemHolder"),
+                MemberCategory.DECLARED_FIELDS);
+
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        for (String schemaPackage : SCHEMA_PACKAGES) {
+            registerSchemaClasses(hints, resolver, schemaPackage);
+        }
+
+        // Data files POI reads on first use (formula functions, table styles, column widths)
+        hints.resources().registerPattern("org/apache/poi/ss/formula/function/*.txt");
+        hints.resources().registerPattern("org/apache/poi/xssf/usermodel/presetTableStyles.xml");
+        hints.resources().registerPattern("font_metrics.properties");
+
+        // Created by Hibernate from "select new ..." queries
+        hints.reflection().registerType(CaseSummary.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        // Interface projection returned by the --find-reference lookups
+        hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(CaseReferenceView.class, TargetAware.class));
+    }
+
+    /**
+     * Registers every schema interface and *Impl class in the package: the interfaces are looked up by name and
+     * the Impl classes are instantiated through their public constructors.
+     */
+    private static void registerSchemaClasses(RuntimeHints hints, PathMatchingResourcePatternResolver resolver,
+                                              String schemaPackage) {
+        try {
+            for (Resource resource : resolver.getResources("classpath*:" + schemaPackage + "/**/*.class")) {
+                String url = resource.getURL().toString();
+                int start = url.lastIndexOf(schemaPackage);
+                String className = url.substring(start, url.length() - ".class".length()).replace('/', '.');
+                hints.reflection().registerType(TypeReference.of(className),
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.PUBLIC_FIELDS);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list the POI schema classes in " + schemaPackage, e);
+        }
+    }
+}
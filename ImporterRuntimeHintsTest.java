@@ -0,0 +1,55 @@
+// test/cli/ImporterRuntimeHintsTest.java
+package com.ppi.utility.importer.cli;
+
+import com.ppi.utility.importer.model.CaseSummary;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the hints the native image relies on without building it.
+ */
+class ImporterRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void registerHints() {
+        new ImporterRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registersTheXmlBeansTypeSystem() {
+        assertThat(RuntimeHintsPredicates.resource()
+                .forResource("org/apache/poi/schemas/ooxml/system/ooxml/ctworksheet530dtype.xsb")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(CTWorksheet.class).withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("org.openxmlformats.schemas.spreadsheetml.x2006.main.impl.CTWorksheetImpl")))
+                .accepts(hints);
+    }
+
+    @Test
+    void registersTheSheetClassPoiCreates() throws Exception {
+        // The schema listing must find the class XMLBeans actually instantiates for a sheet
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            workbook.createSheet("Cases").createRow(0).createCell(0).setCellValue("x");
+            Object sheetXml = workbook.getSheetAt(0).getCTWorksheet();
+            assertThat(RuntimeHintsPredicates.reflection().onType(sheetXml.getClass())).accepts(hints);
+        }
+    }
+
+    @Test
+    void registersTheCaseSummaryConstructor() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(CaseSummary.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+    }
+}
@@ -0,0 +1,40 @@
+// server/ImporterServerApplication.java
+package com.ppi.utility.importer.server;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Optional server mode: accepts workbooks over HTTP and imports them through the ImportJobService,
+ * so imports no longer need someone at a workstation. See ImportUploadController for the endpoints.
+ *
+ * Usage (the server package and Spring Web are only built with mvn -Pserver package, H2 with -Plocal):
+ *   java -cp importer.jar -Dloader.main=com.ppi.utility.importer.server.ImporterServerApplication \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher [--spring.profiles.active=local]
+ *
+ * The "server" profile keeps this class and the controller out of the desktop application's component scan
+ * and switches on the settings in application-server.properties (servlet web application, virtual threads,
+ * upload limits). Adding the "local" profile runs against an in-memory H2 database instead of Oracle.
+ */
+@Profile(ImporterServerApplication.PROFILE)
+@SpringBootApplication(scanBasePackages = {
+        "com.ppi.utility.importer.service",
+        "com.ppi.utility.importer.repository",
+        "com.ppi.utility.importer.server"})
+@EntityScan("com.ppi.utility.importer.model")
+@EnableJpaRepositories("com.ppi.utility.importer.repository")
+public class ImporterServerApplication {
+
+    public static final String PROFILE = "server";
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ImporterServerApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles(PROFILE)
+                .run(args);
+    }
+}
@@ -0,0 +1,311 @@
+// service/LocalStagingStore.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Durable local store for parsed files the database cannot take right now (importer.staging.enabled).
+ *
+ * When a write fails because the database is unreachable, refuses connections or exceeds
+ * importer.write.timeout-seconds, ExcelProcessingService writes the parsed rows to a segment file here instead
+ * of failing the import, and the StagingDrainer replays the segments into CASE_MASTER_TBL once the database
+ * is back. Segments are gzip-compressed DataOutputStream records, a few bytes per column. They are written to a
+ * temp file, synced to disk and then renamed, so a segment is either complete or absent. Names carry an increasing
+ * sequence number, so listing them by name gives the order they were staged in. The gzip trailer's CRC-32 is
+ * checked when a segment is read back, which catches truncated or damaged files.
+ */
+@Service
+public class LocalStagingStore {
+
+    private static final int MAGIC = 0x50504953; // "PPIS"
+    private static final int FORMAT_VERSION = 1;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String FAILED_SUFFIX = ".failed";
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    public LocalStagingStore(@Value("${importer.staging.enabled:false}") boolean enabled,
+                             @Value("${importer.staging.directory:}") String directory) throws IOException {
+        this.enabled = enabled;
+        this.directory = directory.isBlank()
+                ? Path.of(System.getProperty("user.home"), ".ppi-importer", "staging")
+                : Path.of(directory);
+        if (enabled) {
+            Files.createDirectories(this.directory);
+            removeIncompleteSegments();
+            List<Path> pending = pendingSegments();
+            if (!pending.isEmpty()) {
+                lastSequence.set(sequenceOf(pending.get(pending.size() - 1)));
+                System.out.println(pending.size() + " staged import segment(s) in " + this.directory + " wait to be written to the database.");
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tells whether a write failed because the database is unreachable or too slow, as opposed to a problem with
+     * the data. Only such failures are staged; anything else fails the import as before.
+     */
+    public static boolean isDatabaseUnavailable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof TransactionTimedOutException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the parsed rows of a file to a new segment.
+     *
+     * @param workbook The parsed rows.
+     * @param fileName Name of the imported file.
+     * @param fileSha256 Digest of the imported file.
+     * @param ledgerId The ledger entry of the import, or null if none could be written.
+     * @param allowDuplicate Whether the import was confirmed as a duplicate.
+     * @return The staged segment.
+     * @throws IOException If the segment cannot be written; nothing is left behind in that case.
+     */
+    public StagedSegment stage(ParsedWorkbook workbook, String fileName, String fileSha256, Long ledgerId,
+                               boolean allowDuplicate) throws IOException {
+        long sequence = lastSequence.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        Path segmentPath = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        Path tempPath = directory.resolve(segmentPath.getFileName() + TEMP_SUFFIX);
+        StagedSegment segment = new StagedSegment(segmentPath, UUID.randomUUID().toString(), fileName, fileSha256,
+                ledgerId, allowDuplicate, LocalDateTime.now(), workbook);
+
+        try (FileOutputStream file = new FileOutputStream(tempPath.toFile())) {
+            GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(file, STREAM_BUFFER_BYTES), STREAM_BUFFER_BYTES);
+            DataOutputStream out = new DataOutputStream(gzip);
+            writeSegment(out, segment);
+            out.flush();
+            gzip.finish();
+            gzip.flush();
+            file.getFD().sync(); // Durable before it becomes visible under its final name
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        Files.move(tempPath, segmentPath, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Staged " + workbook.size() + " rows of " + fileName + " locally in " + segmentPath.getFileName()
+                + " (" + (Files.size(segmentPath) / 1024) + " KB).");
+        return segment;
+    }
+
+    /**
+     * @return The segments waiting to be replayed, oldest first.
+     */
+    public List<Path> pendingSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            entries.forEach(segments::add);
+        }
+        segments.sort(null); // Fixed-width sequence numbers sort by name
+        return segments;
+    }
+
+    /**
+     * Reads a segment back.
+     *
+     * @throws IOException If the segment cannot be read or fails its checksum.
+     */
+    public StagedSegment read(Path segmentPath) throws IOException {
+        try (InputStream file = Files.newInputStream(segmentPath)) {
+            GZIPInputStream gzip = new GZIPInputStream(new BufferedInputStream(file, STREAM_BUFFER_BYTES), STREAM_BUFFER_BYTES);
+            DataInputStream in = new DataInputStream(gzip);
+            StagedSegment segment = readSegment(in, segmentPath);
+            if (in.read() != -1) { // Reading to the end also verifies the gzip CRC-32
+                throw new IOException("Unexpected data after the last row of " + segmentPath.getFileName() + ".");
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Removes a segment once its rows are in the database.
+     */
+    public void delete(Path segmentPath) throws IOException {
+        Files.deleteIfExists(segmentPath);
+    }
+
+    /**
+     * Renames a segment that cannot be replayed to *.failed, so it no longer holds up the segments after it.
+     * The file is kept for the operator to inspect.
+     */
+    public void markFailed(Path segmentPath) {
+        try {
+            Files.move(segmentPath, segmentPath.resolveSibling(segmentPath.getFileName() + FAILED_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not set aside staged segment " + segmentPath + ": " + e.getMessage());
+        }
+    }
+
+    private void writeSegment(DataOutputStream out, StagedSegment segment) throws IOException {
+        ParsedWorkbook workbook = segment.workbook();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(segment.segmentId());
+        writeString(out, segment.fileName());
+        writeString(out, segment.fileSha256());
+        out.writeBoolean(segment.ledgerId() != null);
+        if (segment.ledgerId() != null) {
+            out.writeLong(segment.ledgerId());
+        }
+        out.writeBoolean(segment.allowDuplicate());
+        writeTimestamp(out, segment.stagedAt());
+        writeTimestamp(out, workbook.getSubmittedTs());
+        out.writeInt(workbook.size());
+        for (int i = 0; i < workbook.size(); i++) {
+            CaseMaster caseMaster = workbook.getRows().get(i);
+            out.writeInt(workbook.getRowNumber(i));
+            writeString(out, caseMaster.getChannelId());
+            writeString(out, caseMaster.getUserId());
+            writeTimestamp(out, caseMaster.getSubmittedTs());
+            writeString(out, caseMaster.getCaseType());
+            out.writeBoolean(caseMaster.getCaseStatusId() != null);
+            if (caseMaster.getCaseStatusId() != null) {
+                out.writeInt(caseMaster.getCaseStatusId());
+            }
+            writeString(out, caseMaster.getIsCurrentUkResident());
+            writeString(out, caseMaster.getTitleCode());
+            writeString(out, caseMaster.getFirstName());
+            writeString(out, caseMaster.getMiddleName());
+            writeString(out, caseMaster.getLastName());
+            out.writeBoolean(caseMaster.getDateOfBirth() != null);
+            if (caseMaster.getDateOfBirth() != null) {
+                out.writeLong(caseMaster.getDateOfBirth().toEpochDay());
+            }
+            writeString(out, caseMaster.getPostCode());
+            writeString(out, caseMaster.getThirdPartyReference1());
+            writeString(out, caseMaster.getThirdPartyReference2());
+        }
+    }
+
+    private StagedSegment readSegment(DataInputStream in, Path segmentPath) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException(segmentPath.getFileName() + " is not a staging segment.");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(segmentPath.getFileName() + " has unsupported format version " + version + ".");
+        }
+        String segmentId = in.readUTF();
+        String fileName = readString(in);
+        String fileSha256 = readString(in);
+        Long ledgerId = in.readBoolean() ? in.readLong() : null;
+        boolean allowDuplicate = in.readBoolean();
+        LocalDateTime stagedAt = readTimestamp(in);
+        ParsedWorkbook workbook = new ParsedWorkbook(readTimestamp(in));
+        int rows = in.readInt();
+        for (int i = 0; i < rows; i++) {
+            int rowNumber = in.readInt();
+            CaseMaster caseMaster = new CaseMaster();
+            caseMaster.setChannelId(readString(in));
+            caseMaster.setUserId(readString(in));
+            caseMaster.setSubmittedTs(readTimestamp(in));
+            caseMaster.setCaseType(readString(in));
+            caseMaster.setCaseStatusId(in.readBoolean() ? in.readInt() : null);
+            caseMaster.setIsCurrentUkResident(readString(in));
+            caseMaster.setTitleCode(readString(in));
+            caseMaster.setFirstName(readString(in));
+            caseMaster.setMiddleName(readString(in));
+            caseMaster.setLastName(readString(in));
+            caseMaster.setDateOfBirth(in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null);
+            caseMaster.setPostCode(readString(in));
+            caseMaster.setThirdPartyReference1(readString(in));
+            caseMaster.setThirdPartyReference2(readString(in));
+            workbook.addRow(rowNumber, caseMaster);
+        }
+        return new StagedSegment(segmentPath, segmentId, fileName, fileSha256, ledgerId, allowDuplicate, stagedAt, workbook);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    /**
+     * Deletes temp files of segments whose writing was cut off; their imports never reported success.
+     */
+    private void removeIncompleteSegments() throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + TEMP_SUFFIX)) {
+            for (Path incomplete : entries) {
+                System.err.println("Removing incomplete staging segment " + incomplete.getFileName() + ".");
+                Files.deleteIfExists(incomplete);
+            }
+        }
+    }
+
+    private static long sequenceOf(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,257 @@
+// service/ParallelCaseMasterWriter.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a parsed workbook to CASE_MASTER_TBL using several writer threads,
+ * each on its own pooled connection.
+ *
+ * Writers insert their slice of rows into the CASE_MASTER_STG staging table in parallel.
+ * Once every writer has finished, a single publish transaction copies the batch into
+ * CASE_MASTER_TBL and clears it from staging. If any writer fails, the staged rows of the
+ * batch are deleted again, so a file is still imported completely or not at all.
+ */
+@Service
+public class ParallelCaseMasterWriter {
+
+    private static final String INSERT_STAGING_SQL =
+            "INSERT INTO CASE_MASTER_STG (STAGING_ID, IMPORT_BATCH_ID, ROW_NUMBER_IN_FILE, CHANNEL_ID, USER_ID, SUBMITTED_TS, "
+                    + "CASE_TYPE, CASE_STATUS_ID, IS_CURRENT_UK_RESIDENT, TITLE_CODE, FIRST_NAME, MIDDLE_NAME, LAST_NAME, "
+                    + "DATE_OF_BIRTH, POST_CODE, THIRD_PARTY_REFERENCE_1, THIRD_PARTY_REFERENCE_2, IMPORT_LEDGER_ID) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // CASE_ID is drawn from the same sequence the CaseMaster entity uses, in file row order like the sequential
+    // path, so paging by CASE_ID returns the rows in file order. Oracle rejects NEXTVAL in a SELECT with its own
+    // ORDER BY, hence the ordered inline view.
+    private static final String PUBLISH_SQL =
+            "INSERT INTO CASE_MASTER_TBL (CASE_ID, CHANNEL_ID, USER_ID, SUBMITTED_TS, CASE_TYPE, CASE_STATUS_ID, "
+                    + "IS_CURRENT_UK_RESIDENT, TITLE_CODE, FIRST_NAME, MIDDLE_NAME, LAST_NAME, DATE_OF_BIRTH, POST_CODE, "
+                    + "THIRD_PARTY_REFERENCE_1, THIRD_PARTY_REFERENCE_2, IMPORT_LEDGER_ID) "
+                    + "SELECT CASE_ID_SEQ.NEXTVAL, CHANNEL_ID, USER_ID, SUBMITTED_TS, CASE_TYPE, CASE_STATUS_ID, "
+                    + "IS_CURRENT_UK_RESIDENT, TITLE_CODE, FIRST_NAME, MIDDLE_NAME, LAST_NAME, DATE_OF_BIRTH, POST_CODE, "
+                    + "THIRD_PARTY_REFERENCE_1, THIRD_PARTY_REFERENCE_2, IMPORT_LEDGER_ID FROM ("
+                    + "SELECT CHANNEL_ID, USER_ID, SUBMITTED_TS, CASE_TYPE, CASE_STATUS_ID, IS_CURRENT_UK_RESIDENT, TITLE_CODE, "
+                    + "FIRST_NAME, MIDDLE_NAME, LAST_NAME, DATE_OF_BIRTH, POST_CODE, THIRD_PARTY_REFERENCE_1, "
+                    + "THIRD_PARTY_REFERENCE_2, IMPORT_LEDGER_ID FROM CASE_MASTER_STG WHERE IMPORT_BATCH_ID = ? "
+                    + "ORDER BY ROW_NUMBER_IN_FILE)";
+
+    private static final String DELETE_STAGING_SQL = "DELETE FROM CASE_MASTER_STG WHERE IMPORT_BATCH_ID = ?";
+
+    private static final long WRITER_STOP_TIMEOUT_SECONDS = 30;
+
+    // Pool connections left to everything else while a batch is staged: the ledger, the job queue, other imports
+    private static final int POOL_HEADROOM = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int writerThreads;
+    private final int maxWriters;
+    private final int batchSize;
+
+    public ParallelCaseMasterWriter(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${importer.write.parallelism:1}") int writerThreads,
+                                    @Value("${importer.write.batch-size:500}") int batchSize,
+                                    @Value("${importer.write.timeout-seconds:0}") int writeTimeoutSeconds,
+                                    @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        if (writeTimeoutSeconds > 0) {
+            // Writer and publish transactions taking longer fail with a timeout, see LocalStagingStore
+            this.transactionTemplate.setTimeout(writeTimeoutSeconds);
+        }
+        this.writerThreads = writerThreads;
+        this.maxWriters = Math.max(1, Math.min(writerThreads, connectionPoolSize - POOL_HEADROOM));
+        if (writerThreads > 1 && maxWriters < writerThreads) {
+            System.err.println("Warning: importer.write.parallelism=" + writerThreads + " exceeds the connection pool ("
+                    + connectionPoolSize + " connections, " + POOL_HEADROOM + " kept free). Using at most " + maxWriters + " writers.");
+        }
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Parallel mode is used only when more than one writer thread is configured
+     * (importer.write.parallelism). With a single writer the sequential JPA path is kept.
+     */
+    public boolean isEnabled() {
+        return writerThreads > 1;
+    }
+
+    /**
+     * Writes all rows of the parsed workbook using the configured number of writer threads.
+     *
+     * @param parsedWorkbook The rows to insert.
+     * @param progress Receives the staged row count while writers run and the written row count once the batch is
+     *                 published; cancellation is checked before every batch and before publishing.
+     * @return The number of rows published to CASE_MASTER_TBL.
+     * @throws ImportCancelledException If the import was cancelled. Staged rows are discarded.
+     * @throws RuntimeException If any writer or the publish step fails. No rows remain in CASE_MASTER_TBL in that case.
+     */
+    public int write(ParsedWorkbook parsedWorkbook, ImportProgress progress) {
+        if (parsedWorkbook.size() == 0) {
+            return 0;
+        }
+        String importBatchId = UUID.randomUUID().toString();
+        // Never start more writers than rows, or more than the connection pool can spare (see the constructor)
+        int writers = Math.min(maxWriters, parsedWorkbook.size());
+        ExecutorService executor = Executors.newFixedThreadPool(writers, namedThreadFactory(importBatchId));
+        try {
+            // Completion order, so the first failing writer is seen without waiting for the others
+            CompletionService<Integer> completionService = new ExecutorCompletionService<>(executor);
+            int sliceSize = (parsedWorkbook.size() + writers - 1) / writers;
+            int slices = 0;
+            for (int start = 0; start < parsedWorkbook.size(); start += sliceSize) {
+                int from = start;
+                int to = Math.min(start + sliceSize, parsedWorkbook.size());
+                completionService.submit(() -> stageSlice(importBatchId, parsedWorkbook, from, to, progress));
+                slices++;
+            }
+
+            int staged = 0;
+            for (int i = 0; i < slices; i++) {
+                staged += completionService.take().get(); // Propagates the first writer failure
+            }
+            System.out.println("Staged " + staged + " rows for import batch " + importBatchId + " using " + writers + " writers.");
+
+            progress.checkCancelled("publishing");
+            int published = publish(importBatchId, parsedWorkbook.size());
+            progress.addRowsWritten(published);
+            return published;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopWriters(executor);
+            discardStaging(importBatchId);
+            throw new RuntimeException("Parallel import interrupted; staged rows were discarded.", e);
+        } catch (ExecutionException e) {
+            stopWriters(executor);
+            discardStaging(importBatchId);
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ImportCancelledException cancelled) {
+                throw cancelled;
+            }
+            throw new RuntimeException("Parallel import failed; staged rows were discarded: " + cause.getMessage(), cause);
+        } catch (RuntimeException e) {
+            // Publish failures roll back on their own; staging is cleaned up for every failure
+            discardStaging(importBatchId);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Inserts rows [from, to) of the workbook into staging in one transaction on the calling writer thread.
+     * Cancellation is checked before each JDBC batch, so outstanding batches are never sent.
+     */
+    private int stageSlice(String importBatchId, ParsedWorkbook parsedWorkbook, int from, int to, ImportProgress progress) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int batchStart = from; batchStart < to; batchStart += batchSize) {
+                progress.checkCancelled("saving");
+                List<Integer> indexes = new ArrayList<>(batchSize);
+                for (int i = batchStart; i < Math.min(batchStart + batchSize, to); i++) {
+                    indexes.add(i);
+                }
+                jdbcTemplate.batchUpdate(INSERT_STAGING_SQL, indexes, batchSize, (ps, index) ->
+                        bindStagingRow(ps, importBatchId, parsedWorkbook.getRowNumber(index), parsedWorkbook.getRows().get(index)));
+                progress.addRowsStaged(indexes.size());
+            }
+        });
+        return to - from;
+    }
+
+    /**
+     * Copies the staged batch into CASE_MASTER_TBL and clears it from staging in a single transaction.
+     */
+    private int publish(String importBatchId, int expectedRows) {
+        Integer published = transactionTemplate.execute(status -> {
+            int inserted = jdbcTemplate.update(PUBLISH_SQL, importBatchId);
+            if (inserted != expectedRows) {
+                throw new IllegalStateException("Publish of import batch " + importBatchId + " inserted " + inserted
+                        + " rows but " + expectedRows + " were parsed.");
+            }
+            jdbcTemplate.update(DELETE_STAGING_SQL, importBatchId);
+            return inserted;
+        });
+        System.out.println("Published import batch " + importBatchId + ": " + published + " rows inserted into CASE_MASTER_TBL.");
+        return published != null ? published : 0;
+    }
+
+    /**
+     * Stops the remaining writers and waits for their transactions to end, so that nothing is
+     * staged for the batch after it has been discarded.
+     */
+    private void stopWriters(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(WRITER_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Warning: writer threads did not stop within " + WRITER_STOP_TIMEOUT_SECONDS + " seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compensating cleanup: removes whatever writers managed to stage for a failed batch.
+     */
+    private void discardStaging(String importBatchId) {
+        try {
+            Integer removed = transactionTemplate.execute(status -> jdbcTemplate.update(DELETE_STAGING_SQL, importBatchId));
+            System.err.println("Discarded " + removed + " staged rows of failed import batch " + importBatchId + ".");
+        } catch (Exception cleanupEx) {
+            // Leftover staging rows are harmless for CASE_MASTER_TBL; report them so they can be purged by batch id
+            System.err.println("Error discarding staged rows of import batch " + importBatchId + ": " + cleanupEx.getMessage());
+        }
+    }
+
+    private void bindStagingRow(PreparedStatement ps, String importBatchId, int rowNumber, CaseMaster caseMaster) throws SQLException {
+        ps.setString(1, importBatchId + ":" + rowNumber);
+        ps.setString(2, importBatchId);
+        ps.setInt(3, rowNumber);
+        ps.setString(4, caseMaster.getChannelId());
+        ps.setString(5, caseMaster.getUserId());
+        ps.setTimestamp(6, caseMaster.getSubmittedTs() != null ? Timestamp.valueOf(caseMaster.getSubmittedTs()) : null);
+        ps.setString(7, caseMaster.getCaseType());
+        ps.setObject(8, caseMaster.getCaseStatusId(), Types.INTEGER);
+        ps.setString(9, caseMaster.getIsCurrentUkResident());
+        ps.setString(10, caseMaster.getTitleCode());
+        ps.setString(11, caseMaster.getFirstName());
+        ps.setString(12, caseMaster.getMiddleName());
+        ps.setString(13, caseMaster.getLastName());
+        ps.setDate(14, caseMaster.getDateOfBirth() != null ? Date.valueOf(caseMaster.getDateOfBirth()) : null);
+        ps.setString(15, caseMaster.getPostCode());
+        ps.setString(16, caseMaster.getThirdPartyReference1());
+        ps.setString(17, caseMaster.getThirdPartyReference2());
+        ps.setObject(18, caseMaster.getImportLedgerId(), Types.BIGINT);
+    }
+
+    /**
+     * Writers spend nearly all their time waiting on the database, so they run on virtual threads.
+     */
+    private static ThreadFactory namedThreadFactory(String importBatchId) {
+        return Thread.ofVirtual().name("case-writer-" + importBatchId.substring(0, 8) + "-", 1).factory();
+    }
+}
@@ -0,0 +1,132 @@
+// test/service/ParallelCaseMasterWriterTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.cli.HeadlessImporterApplication;
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the parallel writer against the in-memory H2 database of the "local" profile (two writers).
+ */
+@SpringBootTest(classes = HeadlessImporterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({HeadlessImporterApplication.PROFILE, "local"})
+class ParallelCaseMasterWriterTest {
+
+    private static final LocalDateTime SUBMITTED_TS = LocalDateTime.of(2024, 5, 1, 10, 15);
+
+    @Autowired
+    private ParallelCaseMasterWriter parallelCaseMasterWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_STG");
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_TBL");
+    }
+
+    @Test
+    void publishesEveryRowAndClearsStaging() {
+        ImportProgress progress = new ImportProgress();
+
+        int published = parallelCaseMasterWriter.write(workbook(5, -1), progress);
+
+        assertThat(published).isEqualTo(5);
+        assertThat(count("CASE_MASTER_TBL")).isEqualTo(5);
+        assertThat(count("CASE_MASTER_STG")).isZero();
+        assertThat(progress.getRowsStaged()).isEqualTo(5);
+        assertThat(progress.getRowsWritten()).isEqualTo(5);
+    }
+
+    @Test
+    void caseIdsFollowTheRowOrderOfTheFile() {
+        // The first writer (thread "-1", first slice) is held back, so the second slice is staged first
+        ImportProgress progress = new ImportProgress() {
+            @Override
+            public void checkCancelled(String stage) {
+                if ("saving".equals(stage) && Thread.currentThread().getName().endsWith("-1")) {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.checkCancelled(stage);
+            }
+        };
+        parallelCaseMasterWriter.write(workbook(150, -1), progress);
+
+        List<String> references = jdbcTemplate.queryForList(
+                "SELECT THIRD_PARTY_REFERENCE_1 FROM CASE_MASTER_TBL ORDER BY LENGTH(CASE_ID), CASE_ID", String.class);
+        assertThat(references).hasSize(150);
+        for (int i = 0; i < references.size(); i++) {
+            assertThat(references.get(i)).isEqualTo("REF" + i);
+        }
+    }
+
+    @Test
+    void failingWriterLeavesNothingInEitherTable() {
+        ImportProgress progress = new ImportProgress();
+
+        // The last row has no USER_ID, so the second writer fails while the first one may already have committed
+        assertThatThrownBy(() -> parallelCaseMasterWriter.write(workbook(6, 5), progress))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("staged rows were discarded");
+
+        assertThat(count("CASE_MASTER_TBL")).isZero();
+        assertThat(count("CASE_MASTER_STG")).isZero();
+        assertThat(progress.getRowsWritten()).isZero();
+    }
+
+    @Test
+    void cancelledImportLeavesNothingInEitherTable() {
+        ImportProgress progress = new ImportProgress();
+        progress.cancel();
+
+        assertThatThrownBy(() -> parallelCaseMasterWriter.write(workbook(4, -1), progress))
+                .isInstanceOf(ImportCancelledException.class);
+
+        assertThat(count("CASE_MASTER_TBL")).isZero();
+        assertThat(count("CASE_MASTER_STG")).isZero();
+    }
+
+    /**
+     * @param rows Number of rows.
+     * @param invalidRow Index of a row without USER_ID, or -1.
+     */
+    private static ParsedWorkbook workbook(int rows, int invalidRow) {
+        ParsedWorkbook workbook = new ParsedWorkbook(SUBMITTED_TS);
+        for (int i = 0; i < rows; i++) {
+            CaseMaster caseMaster = new CaseMaster();
+            caseMaster.setChannelId("PPI");
+            caseMaster.setUserId(i == invalidRow ? null : "IMPORTER");
+            caseMaster.setSubmittedTs(SUBMITTED_TS);
+            caseMaster.setThirdPartyReference1("REF" + i);
+            caseMaster.setThirdPartyReference2("B" + i);
+            caseMaster.setLastName("SMITH");
+            caseMaster.setFirstName("JOHN");
+            caseMaster.setDateOfBirth(LocalDate.of(1980, 1, 1).plusDays(i));
+            caseMaster.setPostCode("SW1A 1AA");
+            workbook.addRow(10 + i, caseMaster);
+        }
+        return workbook;
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,72 @@
+// model/ParsedWorkbook.java
+package com.ppi.utility.importer.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds the result of parsing an Excel file before it is written to the database.
+ * Keeps the common SUBMITTED_TS (D6) together with every CaseMaster built from the data rows,
+ * and remembers the 1-based Excel row number of each entry for error reporting.
+ */
+public class ParsedWorkbook {
+
+    private final LocalDateTime submittedTs;
+    private final List<CaseMaster> rows = new ArrayList<>();
+    private final List<Integer> rowNumbers = new ArrayList<>();
+    private Long importLedgerId;
+
+    public ParsedWorkbook(LocalDateTime submittedTs) {
+        this.submittedTs = submittedTs;
+    }
+
+    /**
+     * Adds a parsed row.
+     *
+     * @param rowNumber The 1-based Excel row number the entry was read from.
+     * @param caseMaster The entity built from the row.
+     */
+    public void addRow(int rowNumber, CaseMaster caseMaster) {
+        rowNumbers.add(rowNumber);
+        rows.add(caseMaster);
+    }
+
+    public LocalDateTime getSubmittedTs() {
+        return submittedTs;
+    }
+
+    public List<CaseMaster> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * Returns the 1-based Excel row number of the entry at the given position in {@link #getRows()}.
+     */
+    public int getRowNumber(int index) {
+        return rowNumbers.get(index);
+    }
+
+    /**
+     * @return The IMPORT_LEDGER_TBL entry of the import writing these rows, or null before it is recorded.
+     */
+    public Long getImportLedgerId() {
+        return importLedgerId;
+    }
+
+    /**
+     * Tags the workbook and each of its rows with the ledger entry of the import writing them,
+     * so that the rows can be told apart from those of other imports with the same SUBMITTED_TS.
+     */
+    public void setImportLedgerId(Long importLedgerId) {
+        this.importLedgerId = importLedgerId;
+        for (CaseMaster caseMaster : rows) {
+            caseMaster.setImportLedgerId(importLedgerId);
+        }
+    }
+
+    public int size() {
+        return rows.size();
+    }
+}
@@ -0,0 +1,156 @@
+// service/PersonBlockingIndex.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseSummary;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of existing cases for the PersonMatchingService, built once from a bulk read.
+ *
+ * Every case is filed under up to four blocking keys, so a single typo in any one field still leaves the
+ * person in a block shared with the incoming row:
+ *   date of birth + postcode outward code (the part before the space, e.g. "SW1A")
+ *   date of birth + first two letters of the last name
+ *   full postcode + first letter of the last name
+ *   postcode outward code + first two letters of the last name
+ * The last two keys do not depend on the date of birth, so a wrong date of birth is still found through the
+ * postcode. A row that has no postcode and a wrong date of birth, or a wrong date of birth and a wrong outward
+ * code, shares no block with the case and is not matched. The same goes for a typo in the first two letters of
+ * the last name combined with a wrong postcode. A row is then scored only against the union of its blocks,
+ * typically a few dozen cases, instead of the whole table.
+ *
+ * Names and postcodes are normalised once, when they are added: upper case, accents removed, names reduced
+ * to letters and postcodes to letters and digits.
+ */
+public class PersonBlockingIndex {
+
+    /**
+     * An indexed case with its normalised fields.
+     */
+    public record Candidate(CaseSummary summary, String lastName, String firstName, String postCode) {
+    }
+
+    private final Map<String, List<Candidate>> blocks = new HashMap<>();
+    private int size;
+
+    /**
+     * Files a case under its blocking keys. Cases without a last name cannot be matched and are skipped.
+     */
+    public void add(CaseSummary summary) {
+        String lastName = normaliseName(summary.lastName());
+        if (lastName.isEmpty()) {
+            return;
+        }
+        Candidate candidate = new Candidate(summary, lastName, normaliseName(summary.firstName()),
+                normalisePostCode(summary.postCode()));
+        for (String key : blockingKeys(lastName, summary.dateOfBirth(), candidate.postCode())) {
+            blocks.computeIfAbsent(key, k -> new ArrayList<>(2)).add(candidate);
+        }
+        size++;
+    }
+
+    /**
+     * Returns the cases sharing at least one block with the given person, each once.
+     *
+     * @param lastName Normalised last name, see {@link #normaliseName(String)}.
+     * @param dateOfBirth Date of birth, may be null.
+     * @param postCode Normalised postcode, see {@link #normalisePostCode(String)}.
+     */
+    public Set<Candidate> candidates(String lastName, LocalDate dateOfBirth, String postCode) {
+        Set<Candidate> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String key : blockingKeys(lastName, dateOfBirth, postCode)) {
+            List<Candidate> block = blocks.get(key);
+            if (block != null) {
+                candidates.addAll(block);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return The number of indexed cases.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of distinct blocks.
+     */
+    public int blockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * The blocking keys of a person, see the class comment.
+     */
+    static List<String> blockingKeys(String lastName, LocalDate dateOfBirth, String postCode) {
+        List<String> keys = new ArrayList<>(4);
+        if (lastName.isEmpty()) {
+            return keys;
+        }
+        String lastNamePrefix = lastName.substring(0, Math.min(2, lastName.length()));
+        if (dateOfBirth != null) {
+            if (!postCode.isEmpty()) {
+                keys.add("D" + dateOfBirth + "|" + outwardCode(postCode));
+            }
+            keys.add("N" + dateOfBirth + "|" + lastNamePrefix);
+        }
+        if (!postCode.isEmpty()) {
+            keys.add("P" + postCode + "|" + lastName.charAt(0));
+            keys.add("O" + outwardCode(postCode) + "|" + lastNamePrefix);
+        }
+        return keys;
+    }
+
+    /**
+     * UK inward codes are always three characters, so whatever precedes them is the outward code.
+     */
+    private static String outwardCode(String postCode) {
+        return postCode.length() > 4 ? postCode.substring(0, postCode.length() - 3) : postCode;
+    }
+
+    /**
+     * Upper case letters only, accents removed: "O'Brien-Smith " and "OBRIEN SMITH" both become "OBRIENSMITH".
+     */
+    public static String normaliseName(String name) {
+        if (name == null || name.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder normalised = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = Character.toUpperCase(decomposed.charAt(i));
+            if (c >= 'A' && c <= 'Z') {
+                normalised.append(c);
+            }
+        }
+        return normalised.toString();
+    }
+
+    /**
+     * Upper case letters and digits only: "sw1a 1aa" becomes "SW1A1AA".
+     */
+    public static String normalisePostCode(String postCode) {
+        if (postCode == null || postCode.isEmpty()) {
+            return "";
+        }
+        StringBuilder normalised = new StringBuilder(postCode.length());
+        for (int i = 0; i < postCode.length(); i++) {
+            char c = Character.toUpperCase(postCode.charAt(i));
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                normalised.append(c);
+            }
+        }
+        return normalised.toString();
+    }
+}
@@ -0,0 +1,81 @@
+// test/service/PersonBlockingIndexTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonBlockingIndexTest {
+
+    private static final LocalDate DATE_OF_BIRTH = LocalDate.of(1980, 1, 31);
+
+    @Test
+    void blockingKeysOfACompletePerson() {
+        assertThat(PersonBlockingIndex.blockingKeys("SMITH", DATE_OF_BIRTH, "SW1A1AA"))
+                .containsExactly("D1980-01-31|SW1A", "N1980-01-31|SM", "PSW1A1AA|S", "OSW1A|SM");
+    }
+
+    @Test
+    void blockingKeysLeaveOutMissingFields() {
+        assertThat(PersonBlockingIndex.blockingKeys("SMITH", null, "SW1A1AA")).containsExactly("PSW1A1AA|S", "OSW1A|SM");
+        assertThat(PersonBlockingIndex.blockingKeys("SMITH", DATE_OF_BIRTH, "")).containsExactly("N1980-01-31|SM");
+        assertThat(PersonBlockingIndex.blockingKeys("", DATE_OF_BIRTH, "SW1A1AA")).isEmpty();
+        // Four characters or fewer can only be an outward code
+        assertThat(PersonBlockingIndex.blockingKeys("O", null, "M1")).containsExactly("PM1|O", "OM1|O");
+    }
+
+    @Test
+    void wrongDateOfBirthIsFoundThroughThePostcode() {
+        PersonBlockingIndex index = indexWith(summary("SMITH", DATE_OF_BIRTH, "SW1A 1AA"));
+
+        assertThat(index.candidates("SMITH", LocalDate.of(1980, 1, 13), "SW1A1AA")).hasSize(1);
+        // Wrong inward code as well: still in the outward code block
+        assertThat(index.candidates("SMITH", LocalDate.of(1980, 1, 13), "SW1A2AB")).hasSize(1);
+    }
+
+    @Test
+    void wrongPostcodeIsFoundThroughTheDateOfBirth() {
+        PersonBlockingIndex index = indexWith(summary("SMITH", DATE_OF_BIRTH, "SW1A 1AA"));
+
+        assertThat(index.candidates("SMYTH", DATE_OF_BIRTH, "EC1A1BB")).hasSize(1);
+    }
+
+    @Test
+    void wrongDateOfBirthWithoutAPostcodeIsNotFound() {
+        // The limitation documented on PersonBlockingIndex
+        PersonBlockingIndex index = indexWith(summary("SMITH", DATE_OF_BIRTH, "SW1A 1AA"));
+
+        assertThat(index.candidates("SMITH", LocalDate.of(1980, 1, 13), "")).isEmpty();
+    }
+
+    @Test
+    void namesAndPostcodesAreNormalised() {
+        assertThat(PersonBlockingIndex.normaliseName("O'Brien-Smith ")).isEqualTo("OBRIENSMITH");
+        assertThat(PersonBlockingIndex.normaliseName("Zoë")).isEqualTo("ZOE");
+        assertThat(PersonBlockingIndex.normalisePostCode("sw1a 1aa")).isEqualTo("SW1A1AA");
+
+        PersonBlockingIndex index = indexWith(summary("O'Brien", DATE_OF_BIRTH, "sw1a 1aa"));
+        assertThat(index.candidates("OBRIEN", DATE_OF_BIRTH, "SW1A1AA")).hasSize(1);
+    }
+
+    @Test
+    void casesWithoutALastNameAreNotIndexed() {
+        PersonBlockingIndex index = indexWith(summary(null, DATE_OF_BIRTH, "SW1A 1AA"));
+
+        assertThat(index.size()).isZero();
+        assertThat(index.blockCount()).isZero();
+    }
+
+    private static PersonBlockingIndex indexWith(CaseSummary summary) {
+        PersonBlockingIndex index = new PersonBlockingIndex();
+        index.add(summary);
+        return index;
+    }
+
+    private static CaseSummary summary(String lastName, LocalDate dateOfBirth, String postCode) {
+        return new CaseSummary("1", null, "REF", "B", lastName, "JOHN", dateOfBirth, postCode);
+    }
+}
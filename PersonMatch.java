@@ -0,0 +1,41 @@
+// service/PersonMatch.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.CaseSummary;
+
+import java.util.Objects;
+
+/**
+ * An incoming row and the existing case the PersonMatchingService takes to be the same person.
+ *
+ * @param rowNumber The 1-based Excel row number of the incoming row.
+ * @param incoming The parsed row.
+ * @param existing The best scoring case of CASE_MASTER_TBL.
+ * @param score Similarity between 0 and 1 over last name, first name, date of birth and postcode.
+ */
+public record PersonMatch(int rowNumber, CaseMaster incoming, CaseSummary existing, double score) {
+
+    /**
+     * @return Whether the existing case carries the same third-party references, i.e. the row was sent before,
+     * rather than the same person sent under another reference.
+     */
+    public boolean isSameReference() {
+        return Objects.equals(incoming.getThirdPartyReference1(), existing.thirdPartyReference1())
+                && Objects.equals(incoming.getThirdPartyReference2(), existing.thirdPartyReference2());
+    }
+
+    /**
+     * @return A one-line description suitable for the console.
+     */
+    public String describe() {
+        return String.format("Row %d [%s/%s] %s, %s (%s) %s ~ %s (score %.2f%s)", rowNumber,
+                nullToEmpty(incoming.getThirdPartyReference1()), nullToEmpty(incoming.getThirdPartyReference2()),
+                nullToEmpty(incoming.getLastName()), nullToEmpty(incoming.getFirstName()), incoming.getDateOfBirth(),
+                nullToEmpty(incoming.getPostCode()), existing.describe(), score, isSameReference() ? ", same reference" : "");
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,105 @@
+// test/service/PersonMatchingBenchmarkTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.CaseSummary;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the matching rate of the PersonMatchingService against a synthetic table, without a database:
+ *   mvn test -Dtest=PersonMatchingBenchmarkTest -Dbenchmark=true [-Dbenchmark.cases=200000] [-Dbenchmark.rows=50000]
+ * A fifth of the incoming rows are existing people with one typo in the name, date of birth or postcode;
+ * the rest are new people. Only match() is timed, after a warm-up round; the index build is reported separately.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PersonMatchingBenchmarkTest {
+
+    private static final String[] SYLLABLES = {"AB", "AN", "BE", "BRO", "CAR", "DA", "EL", "FER", "GRA", "HAM",
+            "IN", "JO", "KER", "LAN", "MAR", "NEL", "OR", "PAR", "RO", "SMI", "SON", "TH", "WIL", "WOOD"};
+    private static final String[] FIRST_NAMES = {"JOHN", "MARY", "DAVID", "SARAH", "JAMES", "EMMA", "PETER", "ANNA",
+            "PAUL", "LUCY", "MARK", "JANE"};
+
+    @Test
+    void matchingRate() {
+        int caseCount = Integer.getInteger("benchmark.cases", 200_000);
+        int rowCount = Integer.getInteger("benchmark.rows", 50_000);
+        Random random = new Random(42);
+
+        List<CaseSummary> cases = new ArrayList<>(caseCount);
+        for (int i = 0; i < caseCount; i++) {
+            cases.add(new CaseSummary(String.valueOf(i), null, "A" + i, null, lastName(random),
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], dateOfBirth(random), postCode(random)));
+        }
+        long buildStarted = System.nanoTime();
+        PersonBlockingIndex index = new PersonBlockingIndex();
+        cases.forEach(index::add);
+        long buildMillis = (System.nanoTime() - buildStarted) / 1_000_000;
+
+        ParsedWorkbook workbook = new ParsedWorkbook(LocalDateTime.of(2024, 5, 1, 10, 15));
+        for (int i = 0; i < rowCount; i++) {
+            CaseMaster row;
+            if (i % 5 == 0) {
+                CaseSummary existing = cases.get(random.nextInt(caseCount));
+                row = PersonMatchingServiceTest.row("B" + i, existing.lastName(), existing.firstName(),
+                        existing.dateOfBirth(), existing.postCode());
+                switch (random.nextInt(3)) {
+                    case 0 -> row.setLastName(typo(existing.lastName(), random));
+                    case 1 -> row.setDateOfBirth(existing.dateOfBirth().plusDays(1));
+                    default -> row.setPostCode(typo(existing.postCode(), random));
+                }
+            } else {
+                row = PersonMatchingServiceTest.row("B" + i, lastName(random), FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                        dateOfBirth(random), postCode(random));
+            }
+            workbook.addRow(10 + i, row);
+        }
+
+        PersonMatchingService service = PersonMatchingServiceTest.service(0.9);
+        service.match(workbook, index); // Warm-up
+        long started = System.nanoTime();
+        List<PersonMatch> matches = service.match(workbook, index);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+        System.out.println("Benchmark: " + caseCount + " cases indexed in " + buildMillis + " ms (" + index.blockCount()
+                + " blocks); " + rowCount + " rows matched in " + elapsedMillis + " ms = " + (rowCount * 1000L / elapsedMillis)
+                + " rows/s; " + matches.size() + " matches for " + (rowCount / 5) + " planted duplicates.");
+        assertThat(matches).isNotEmpty();
+    }
+
+    private static String lastName(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0, n = 2 + random.nextInt(2); i < n; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+
+    private static LocalDate dateOfBirth(Random random) {
+        return LocalDate.of(1940, 1, 1).plusDays(random.nextInt(60 * 365));
+    }
+
+    /**
+     * Outward codes like "B12" out of about 2600, close to the number of UK outward codes, so the blocks
+     * that include them fill up as in a national file.
+     */
+    private static String postCode(Random random) {
+        return "" + (char) ('A' + random.nextInt(26)) + (1 + random.nextInt(99))
+                + " " + random.nextInt(10) + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26));
+    }
+
+    private static String typo(String value, Random random) {
+        int position = 1 + random.nextInt(value.length() - 1);
+        char replacement = value.charAt(position) == 'X' ? 'Y' : 'X';
+        return value.substring(0, position) + replacement + value.substring(position + 1);
+    }
+}
@@ -0,0 +1,249 @@
+// service/PersonMatchingService.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.CaseSummary;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service that finds incoming rows whose person already has a case in CASE_MASTER_TBL, typically sent by
+ * another partner under a different third-party reference.
+ *
+ * The existing cases are read once, in a single streamed query, into a PersonBlockingIndex. Each incoming row
+ * is then scored only against the few cases of its blocks: Jaro-Winkler similarity on the normalised last and
+ * first names and postcode, and a date of birth score that tolerates swapped day and month or a single wrong
+ * digit. The weighted score must reach importer.matching.threshold. No per-row queries are run once the index is
+ * built; PersonMatchingBenchmarkTest measures the matching rate (mvn test -Dtest=PersonMatchingBenchmarkTest
+ * -Dbenchmark=true). See PersonBlockingIndex for the combinations of typos that cannot be found.
+ */
+@Service
+public class PersonMatchingService {
+
+    private static final String SELECT_PERSONS_SQL =
+            "SELECT CASE_ID, SUBMITTED_TS, THIRD_PARTY_REFERENCE_1, THIRD_PARTY_REFERENCE_2, LAST_NAME, FIRST_NAME, "
+                    + "DATE_OF_BIRTH, POST_CODE FROM CASE_MASTER_TBL WHERE LAST_NAME IS NOT NULL";
+
+    // Weights of the compared fields; fields missing on either side are left out and the rest re-weighted
+    private static final double LAST_NAME_WEIGHT = 0.3;
+    private static final double FIRST_NAME_WEIGHT = 0.2;
+    private static final double DATE_OF_BIRTH_WEIGHT = 0.3;
+    private static final double POST_CODE_WEIGHT = 0.2;
+
+    // Candidates whose last names are further apart than this are not scored at all
+    private static final double MIN_LAST_NAME_SIMILARITY = 0.75;
+
+    // Jaro similarity above which Jaro-Winkler adds its common prefix bonus
+    private static final double WINKLER_BOOST_THRESHOLD = 0.7;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double threshold;
+
+    public PersonMatchingService(DataSource dataSource,
+                                 @Value("${importer.matching.fetch-size:1000}") int fetchSize,
+                                 @Value("${importer.matching.threshold:0.9}") double threshold) {
+        // Own JdbcTemplate, so the large fetch size does not apply to the importer's queries
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.threshold = threshold;
+    }
+
+    /**
+     * Reads every case with a last name into a new blocking index. Rows are added as they are fetched, so only
+     * the index itself is held on the heap.
+     */
+    public PersonBlockingIndex buildIndex() {
+        long started = System.currentTimeMillis();
+        PersonBlockingIndex index = new PersonBlockingIndex();
+        jdbcTemplate.query(SELECT_PERSONS_SQL, rs -> {
+            Timestamp submittedTs = rs.getTimestamp("SUBMITTED_TS");
+            Date dateOfBirth = rs.getDate("DATE_OF_BIRTH");
+            index.add(new CaseSummary(
+                    rs.getString("CASE_ID"),
+                    submittedTs != null ? submittedTs.toLocalDateTime() : null,
+                    rs.getString("THIRD_PARTY_REFERENCE_1"),
+                    rs.getString("THIRD_PARTY_REFERENCE_2"),
+                    rs.getString("LAST_NAME"),
+                    rs.getString("FIRST_NAME"),
+                    dateOfBirth != null ? dateOfBirth.toLocalDate() : null,
+                    rs.getString("POST_CODE")));
+        });
+        System.out.println("Indexed " + index.size() + " existing cases in " + index.blockCount() + " blocks in "
+                + (System.currentTimeMillis() - started) + " ms.");
+        return index;
+    }
+
+    /**
+     * Matches the parsed rows against the cases currently in CASE_MASTER_TBL.
+     *
+     * @return The best match of every row that has one, in row order.
+     */
+    public List<PersonMatch> match(ParsedWorkbook parsedWorkbook) {
+        return match(parsedWorkbook, buildIndex());
+    }
+
+    /**
+     * Matches the parsed rows against an index built before, e.g. to match several files against one read.
+     *
+     * @return The best match of every row that has one, in row order.
+     */
+    public List<PersonMatch> match(ParsedWorkbook parsedWorkbook, PersonBlockingIndex index) {
+        long started = System.nanoTime();
+        List<PersonMatch> matches = new ArrayList<>();
+        List<CaseMaster> rows = parsedWorkbook.getRows();
+        long compared = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            CaseMaster row = rows.get(i);
+            String lastName = PersonBlockingIndex.normaliseName(row.getLastName());
+            String firstName = PersonBlockingIndex.normaliseName(row.getFirstName());
+            String postCode = PersonBlockingIndex.normalisePostCode(row.getPostCode());
+
+            PersonBlockingIndex.Candidate best = null;
+            double bestScore = threshold;
+            for (PersonBlockingIndex.Candidate candidate : index.candidates(lastName, row.getDateOfBirth(), postCode)) {
+                compared++;
+                double score = score(lastName, firstName, row.getDateOfBirth(), postCode, candidate);
+                if (score >= bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            if (best != null) {
+                matches.add(new PersonMatch(parsedWorkbook.getRowNumber(i), row, best.summary(), bestScore));
+            }
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        System.out.println("Matched " + rows.size() + " rows with " + compared + " comparisons in " + elapsedMillis
+                + " ms (" + (rows.size() * 1000L / elapsedMillis) + " rows/s): " + matches.size() + " possible existing person(s).");
+        return matches;
+    }
+
+    private static double score(String lastName, String firstName, LocalDate dateOfBirth, String postCode,
+                                PersonBlockingIndex.Candidate candidate) {
+        double lastNameScore = jaroWinkler(lastName, candidate.lastName());
+        if (lastNameScore < MIN_LAST_NAME_SIMILARITY) {
+            return 0;
+        }
+        double total = LAST_NAME_WEIGHT * lastNameScore;
+        double weights = LAST_NAME_WEIGHT;
+        if (!firstName.isEmpty() && !candidate.firstName().isEmpty()) {
+            total += FIRST_NAME_WEIGHT * firstNameScore(firstName, candidate.firstName());
+            weights += FIRST_NAME_WEIGHT;
+        }
+        LocalDate candidateDateOfBirth = candidate.summary().dateOfBirth();
+        if (dateOfBirth != null && candidateDateOfBirth != null) {
+            total += DATE_OF_BIRTH_WEIGHT * dateOfBirthScore(dateOfBirth, candidateDateOfBirth);
+            weights += DATE_OF_BIRTH_WEIGHT;
+        }
+        if (!postCode.isEmpty() && !candidate.postCode().isEmpty()) {
+            total += POST_CODE_WEIGHT * (postCode.equals(candidate.postCode()) ? 1 : jaroWinkler(postCode, candidate.postCode()));
+            weights += POST_CODE_WEIGHT;
+        }
+        return total / weights;
+    }
+
+    /**
+     * An initial matches the full name it abbreviates ("J" and "JOHN").
+     */
+    private static double firstNameScore(String a, String b) {
+        if (a.length() == 1 || b.length() == 1) {
+            return a.charAt(0) == b.charAt(0) ? 0.9 : 0;
+        }
+        return jaroWinkler(a, b);
+    }
+
+    /**
+     * 1 for the same date, 0.9 for day and month swapped (US order), 0.8 for a single wrong or two adjacent
+     * swapped digits, otherwise 0.
+     */
+    static double dateOfBirthScore(LocalDate a, LocalDate b) {
+        if (a.equals(b)) {
+            return 1;
+        }
+        if (a.getYear() == b.getYear() && a.getMonthValue() == b.getDayOfMonth() && a.getDayOfMonth() == b.getMonthValue()) {
+            return 0.9;
+        }
+        String x = a.toString();
+        String y = b.toString();
+        int first = -1;
+        int differences = 0;
+        for (int i = 0; i < x.length() && i < y.length(); i++) {
+            if (x.charAt(i) != y.charAt(i)) {
+                if (differences++ == 0) {
+                    first = i;
+                }
+            }
+        }
+        if (differences == 1) {
+            return 0.8;
+        }
+        if (differences == 2 && first + 1 < x.length() && x.charAt(first) == y.charAt(first + 1) && x.charAt(first + 1) == y.charAt(first)) {
+            return 0.8;
+        }
+        return 0;
+    }
+
+    /**
+     * Jaro-Winkler similarity between 0 (nothing in common) and 1 (equal), favouring strings with a common prefix.
+     * As in Winkler's definition the prefix bonus only applies above a Jaro similarity of 0.7, so a shared first
+     * letter does not lift an otherwise unrelated pair.
+     */
+    static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1;
+        }
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] aMatched = new boolean[a.length()];
+        boolean[] bMatched = new boolean[b.length()];
+        int matching = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!bMatched[j] && a.charAt(i) == b.charAt(j)) {
+                    aMatched[i] = true;
+                    bMatched[j] = true;
+                    matching++;
+                    break;
+                }
+            }
+        }
+        if (matching == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (aMatched[i]) {
+                while (!bMatched[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matching;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3;
+        if (jaro <= WINKLER_BOOST_THRESHOLD) {
+            return jaro;
+        }
+        int prefix = 0;
+        while (prefix < 4 && prefix < a.length() && prefix < b.length() && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+}
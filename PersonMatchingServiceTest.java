@@ -0,0 +1,97 @@
+// test/service/PersonMatchingServiceTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.CaseSummary;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PersonMatchingServiceTest {
+
+    @Test
+    void jaroWinklerOfKnownPairs() {
+        assertThat(PersonMatchingService.jaroWinkler("MARTHA", "MARTHA")).isEqualTo(1);
+        assertThat(PersonMatchingService.jaroWinkler("MARTHA", "MARHTA")).isCloseTo(0.961, within(0.001));
+        assertThat(PersonMatchingService.jaroWinkler("DWAYNE", "DUANE")).isCloseTo(0.840, within(0.001));
+        assertThat(PersonMatchingService.jaroWinkler("DIXON", "DICKSONX")).isCloseTo(0.813, within(0.001));
+        assertThat(PersonMatchingService.jaroWinkler("ABC", "XYZ")).isZero();
+        // Jaro 0.5: too low for the bonus of the shared first letter
+        assertThat(PersonMatchingService.jaroWinkler("ABCD", "AXYZ")).isCloseTo(0.5, within(0.001));
+        assertThat(PersonMatchingService.jaroWinkler("", "SMITH")).isZero();
+    }
+
+    @Test
+    void jaroWinklerIsSymmetric() {
+        assertThat(PersonMatchingService.jaroWinkler("SMITH", "SMYTHE"))
+                .isEqualTo(PersonMatchingService.jaroWinkler("SMYTHE", "SMITH"));
+    }
+
+    @Test
+    void dateOfBirthScores() {
+        LocalDate date = LocalDate.of(1980, 1, 12);
+
+        assertThat(PersonMatchingService.dateOfBirthScore(date, date)).isEqualTo(1);
+        // Day and month swapped
+        assertThat(PersonMatchingService.dateOfBirthScore(date, LocalDate.of(1980, 12, 1))).isEqualTo(0.9);
+        // A single wrong digit, in the day or in the year
+        assertThat(PersonMatchingService.dateOfBirthScore(date, LocalDate.of(1980, 1, 13))).isEqualTo(0.8);
+        assertThat(PersonMatchingService.dateOfBirthScore(date, LocalDate.of(1981, 1, 12))).isEqualTo(0.8);
+        // Two adjacent digits swapped
+        assertThat(PersonMatchingService.dateOfBirthScore(date, LocalDate.of(1908, 1, 12))).isEqualTo(0.8);
+        assertThat(PersonMatchingService.dateOfBirthScore(date, LocalDate.of(1980, 1, 21))).isEqualTo(0.8);
+        // Two unrelated digits
+        assertThat(PersonMatchingService.dateOfBirthScore(date, LocalDate.of(1981, 1, 13))).isZero();
+        assertThat(PersonMatchingService.dateOfBirthScore(date, LocalDate.of(1975, 6, 30))).isZero();
+    }
+
+    @Test
+    void matchesAPersonSentUnderAnotherReference() {
+        PersonBlockingIndex index = new PersonBlockingIndex();
+        index.add(new CaseSummary("100", null, "PARTNER-A-1", null, "SMITH", "JOHN", LocalDate.of(1980, 1, 12), "SW1A 1AA"));
+        index.add(new CaseSummary("101", null, "PARTNER-A-2", null, "JONES", "MARY", LocalDate.of(1975, 6, 30), "EC1A 1BB"));
+
+        ParsedWorkbook workbook = new ParsedWorkbook(LocalDateTime.of(2024, 5, 1, 10, 15));
+        workbook.addRow(10, row("PARTNER-B-9", "Smyth", "J", LocalDate.of(1980, 12, 1), "sw1a 1aa"));
+        workbook.addRow(11, row("PARTNER-B-10", "BROWN", "MARY", LocalDate.of(1975, 6, 30), "EC1A 1BB"));
+
+        List<PersonMatch> matches = service(0.85).match(workbook, index);
+
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).rowNumber()).isEqualTo(10);
+        assertThat(matches.get(0).existing().caseId()).isEqualTo("100");
+        assertThat(matches.get(0).score()).isBetween(0.85, 1.0);
+    }
+
+    @Test
+    void scoreBelowTheThresholdIsNotAMatch() {
+        PersonBlockingIndex index = new PersonBlockingIndex();
+        index.add(new CaseSummary("100", null, "A", null, "SMITH", "JOHN", LocalDate.of(1980, 1, 12), "SW1A 1AA"));
+        ParsedWorkbook workbook = new ParsedWorkbook(LocalDateTime.of(2024, 5, 1, 10, 15));
+        workbook.addRow(10, row("B", "SMITH", "PETER", LocalDate.of(1980, 1, 13), "SW1A 1AA"));
+
+        assertThat(service(0.99).match(workbook, index)).isEmpty();
+    }
+
+    static PersonMatchingService service(double threshold) {
+        // Not connected: the tests match against an index built in memory
+        return new PersonMatchingService(new DriverManagerDataSource("jdbc:h2:mem:unused"), 1000, threshold);
+    }
+
+    static CaseMaster row(String reference, String lastName, String firstName, LocalDate dateOfBirth, String postCode) {
+        CaseMaster row = new CaseMaster();
+        row.setThirdPartyReference1(reference);
+        row.setLastName(lastName);
+        row.setFirstName(firstName);
+        row.setDateOfBirth(dateOfBirth);
+        row.setPostCode(postCode);
+        return row;
+    }
+}
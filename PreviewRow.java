@@ -0,0 +1,30 @@
+// model/PreviewRow.java
+package com.ppi.utility.importer.model;
+
+/**
+ * One data row of a workbook preview: the Excel row number and the raw display values
+ * of columns B to G (THIRD_PARTY_REFERENCE_1 to POST_CODE), exactly as they would be imported.
+ */
+public class PreviewRow {
+
+    private final int rowNumber;
+    private final String[] values;
+
+    public PreviewRow(int rowNumber, String[] values) {
+        this.rowNumber = rowNumber;
+        this.values = values;
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @param column 0 for column B up to 5 for column G.
+     * @return The display value, or an empty string for a blank cell.
+     */
+    public String getValue(int column) {
+        String value = column < values.length ? values[column] : null;
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,128 @@
+// service/ReadAheadInputStream.java
+package com.ppi.utility.importer.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InputStream that reads its source on another thread, up to a fixed number of chunks ahead of the consumer.
+ *
+ * Used for the sheet part of a workbook: inflating the zip entry then overlaps with the parsing of the shared
+ * strings and styles, and later with the parsing of the sheet itself. The bounded queue caps the heap used by
+ * bytes inflated but not yet parsed. Closing the stream stops the background read, e.g. when a preview has
+ * read enough rows.
+ */
+class ReadAheadInputStream extends InputStream {
+
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private byte[] current;
+    private int position;
+
+    /**
+     * Starts reading the source on the given executor. The source is closed by the background read.
+     *
+     * @param source The stream to read ahead, e.g. an inflating zip entry stream.
+     * @param chunkSize Bytes per chunk.
+     * @param maxChunks Chunks that may be read ahead of the consumer.
+     * @param executor Runs the background read.
+     */
+    ReadAheadInputStream(InputStream source, int chunkSize, int maxChunks, Executor executor) {
+        this.chunks = new ArrayBlockingQueue<>(Math.max(1, maxChunks) + 1); // One extra slot for END
+        executor.execute(() -> pump(source, Math.max(1, chunkSize)));
+    }
+
+    private void pump(InputStream source, int chunkSize) {
+        try (source) {
+            while (!closed) {
+                byte[] chunk = source.readNBytes(chunkSize);
+                if (chunk.length > 0 && !put(chunk)) {
+                    return;
+                }
+                if (chunk.length < chunkSize) {
+                    break; // End of the source
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+        }
+        put(END);
+    }
+
+    /**
+     * Waits for room in the queue. Returns false if the stream was closed meanwhile.
+     */
+    private boolean put(byte[] chunk) {
+        try {
+            while (!closed) {
+                if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Makes sure current holds unread bytes. Returns false at the end of the source.
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (current == END) {
+            return false;
+        }
+        try {
+            current = chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the sheet to be inflated", e);
+        }
+        position = 0;
+        if (current == END) {
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return fill() ? current[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chunks.clear(); // Unblocks the background read, which then sees closed and stops
+    }
+}
@@ -0,0 +1,79 @@
+// service/ReconciliationResult.java
+package com.ppi.utility.importer.service;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of comparing the rows parsed from a file with the rows its import stored in CASE_MASTER_TBL.
+ *
+ * Three figures are compared on each side: the row count, the number of distinct
+ * THIRD_PARTY_REFERENCE_1/2 pairs, and the sum of a hash of each row's reference pair.
+ * Together they catch missing, extra and altered rows without reading the rows back one by one.
+ */
+public class ReconciliationResult {
+
+    private final LocalDateTime submittedTs;
+    private final Long importLedgerId;
+    private final long parsedRows;
+    private final long persistedRows;
+    private final long parsedDistinctReferences;
+    private final long persistedDistinctReferences;
+    private final BigInteger parsedReferenceChecksum;
+    private final BigInteger persistedReferenceChecksum;
+
+    public ReconciliationResult(LocalDateTime submittedTs, Long importLedgerId,
+                                long parsedRows, long persistedRows,
+                                long parsedDistinctReferences, long persistedDistinctReferences,
+                                BigInteger parsedReferenceChecksum, BigInteger persistedReferenceChecksum) {
+        this.submittedTs = submittedTs;
+        this.importLedgerId = importLedgerId;
+        this.parsedRows = parsedRows;
+        this.persistedRows = persistedRows;
+        this.parsedDistinctReferences = parsedDistinctReferences;
+        this.persistedDistinctReferences = persistedDistinctReferences;
+        this.parsedReferenceChecksum = parsedReferenceChecksum;
+        this.persistedReferenceChecksum = persistedReferenceChecksum;
+    }
+
+    /**
+     * @return true if counts and checksums agree on both sides.
+     */
+    public boolean matches() {
+        return parsedRows == persistedRows
+                && parsedDistinctReferences == persistedDistinctReferences
+                && parsedReferenceChecksum.equals(persistedReferenceChecksum);
+    }
+
+    public LocalDateTime getSubmittedTs() {
+        return submittedTs;
+    }
+
+    /**
+     * @return The ledger entry whose rows were compared, or null if all rows of the SUBMITTED_TS were.
+     */
+    public Long getImportLedgerId() {
+        return importLedgerId;
+    }
+
+    public long getParsedRows() {
+        return parsedRows;
+    }
+
+    public long getPersistedRows() {
+        return persistedRows;
+    }
+
+    /**
+     * @return A one-line summary suitable for the UI or the console.
+     */
+    public String describe() {
+        String scope = (importLedgerId != null ? "import " + importLedgerId + ", " : "") + "SUBMITTED_TS " + submittedTs;
+        if (matches()) {
+            return "Reconciliation OK: " + persistedRows + " rows in CASE_MASTER_TBL for " + scope + ".";
+        }
+        return "Reconciliation MISMATCH for " + scope + ": parsed " + parsedRows + " rows / "
+                + parsedDistinctReferences + " distinct references / reference checksum " + parsedReferenceChecksum + ", but found "
+                + persistedRows + " / " + persistedDistinctReferences + " / " + persistedReferenceChecksum + " in CASE_MASTER_TBL.";
+    }
+}
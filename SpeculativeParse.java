@@ -0,0 +1,151 @@
+// service/SpeculativeParse.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.ParsedWorkbook;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * A file parsed in the background while the user is still looking at the selection, see SpeculativeParseService.
+ *
+ * Pass it to the import with ImportOptions.setSpeculativeParse(): ExcelProcessingService then takes the digest
+ * and the parsed rows from here instead of reading the file again, waiting if the parse is still running.
+ * The result is only used if the file still has the length and modification time it had when the parse started;
+ * otherwise, or if the parse failed, the import reads the file itself. discard() stops a running parse and
+ * drops the parsed rows.
+ */
+public class SpeculativeParse {
+
+    // How often an import waiting for the parse re-checks whether it was cancelled
+    private static final long WAIT_POLL_MILLIS = 250;
+
+    /**
+     * The digest and rows of the file.
+     */
+    record Prepared(String fileSha256, ParsedWorkbook workbook) {
+    }
+
+    private final File file;
+    private final long length;
+    private final long lastModified;
+    private final ImportProgress progress = new ImportProgress();
+    private final CompletableFuture<Prepared> result = new CompletableFuture<>();
+    private volatile boolean discarded;
+
+    SpeculativeParse(File file) {
+        this.file = file;
+        this.length = file.length();
+        this.lastModified = file.lastModified();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Progress of the background parse; cancelled by {@link #discard()}.
+     */
+    ImportProgress getProgress() {
+        return progress;
+    }
+
+    void complete(String fileSha256, ParsedWorkbook workbook) {
+        result.complete(new Prepared(fileSha256, workbook));
+    }
+
+    void fail(Throwable failure) {
+        result.completeExceptionally(failure);
+    }
+
+    /**
+     * Registers a listener that is called, on the parsing thread, once the parse has succeeded or failed.
+     * A discarded parse does not call it.
+     */
+    public void whenFinished(Consumer<SpeculativeParse> listener) {
+        result.whenComplete((prepared, failure) -> {
+            if (!discarded) {
+                listener.accept(this);
+            }
+        });
+    }
+
+    /**
+     * @return Whether the rows are parsed and can be imported without reading the file again.
+     */
+    public boolean isReady() {
+        return !discarded && result.isDone() && !result.isCompletedExceptionally() && result.getNow(null) != null;
+    }
+
+    /**
+     * @return The number of parsed rows, or 0 if the parse is not finished or failed.
+     */
+    public int getRowCount() {
+        return isReady() ? result.getNow(null).workbook().size() : 0;
+    }
+
+    /**
+     * @return Why the parse failed, e.g. a row that does not validate; null if it did not (yet) fail.
+     */
+    public Throwable getFailure() {
+        if (discarded || !result.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            result.join();
+            return null;
+        } catch (Exception e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    /**
+     * Stops the parse if it is still running and releases the parsed rows.
+     */
+    public void discard() {
+        discarded = true;
+        progress.cancel();
+        result.obtrudeValue(null); // Drops the reference to the rows even if the parse has finished
+    }
+
+    /**
+     * Waits for the parse of the given file, checking the import's cancellation meanwhile.
+     *
+     * @return The digest and rows, or null if they cannot be used for this file and it has to be read again.
+     * @throws ImportCancelledException If the import was cancelled while waiting.
+     */
+    Prepared await(File importedFile, ImportProgress importProgress) {
+        if (discarded || !file.equals(importedFile)) {
+            return null;
+        }
+        Prepared prepared;
+        try {
+            while (true) {
+                importProgress.checkCancelled("parsing");
+                try {
+                    prepared = result.get(WAIT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    // Still parsing
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportCancelledException("parsing", importProgress.getRowsParsed(), importProgress.getRowsWritten());
+        } catch (ExecutionException e) {
+            System.err.println("Background parse of " + file.getName() + " failed, reading it again: " + e.getCause().getMessage());
+            return null;
+        }
+        if (prepared == null || file.length() != length || file.lastModified() != lastModified) {
+            if (prepared != null) {
+                System.out.println(file.getName() + " changed after it was selected; reading it again.");
+            }
+            return null;
+        }
+        return prepared;
+    }
+}
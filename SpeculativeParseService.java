@@ -0,0 +1,81 @@
+// service/SpeculativeParseService.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Service that parses a file as soon as it is selected, before the user submits it.
+ *
+ * Users often look at the selection and its preview for a while before pressing Submit. Meanwhile the file's
+ * digest is computed and its rows are parsed and validated on a virtual thread, with the engine the import
+ * would use, and kept as a SpeculativeParse. An import given that SpeculativeParse goes straight to the ledger
+ * check and the write. Files whose parsed rows would take more than importer.speculative.max-heap-mb (the
+ * estimate of ImportEngineSelector) are not parsed ahead, so a selection never holds more than that on the heap;
+ * they are read when the import runs, as before.
+ */
+@Service
+public class SpeculativeParseService {
+
+    private final ExcelProcessingService excelProcessingService;
+    private final ImportEngineSelector importEngineSelector;
+    private final ImportLedgerService importLedgerService;
+    private final boolean enabled;
+    private final long maxHeapBytes;
+
+    public SpeculativeParseService(ExcelProcessingService excelProcessingService,
+                                   ImportEngineSelector importEngineSelector,
+                                   ImportLedgerService importLedgerService,
+                                   @Value("${importer.speculative.enabled:true}") boolean enabled,
+                                   @Value("${importer.speculative.max-heap-mb:256}") long maxHeapMb) {
+        this.excelProcessingService = excelProcessingService;
+        this.importEngineSelector = importEngineSelector;
+        this.importLedgerService = importLedgerService;
+        this.enabled = enabled;
+        this.maxHeapBytes = maxHeapMb * 1024 * 1024;
+    }
+
+    /**
+     * Starts parsing the given file in the background.
+     *
+     * @param excelFile The selected file.
+     * @return The running parse; empty if speculative parsing is disabled, or the file is too large or not a
+     * readable .xlsx file (the import reports that when it runs).
+     */
+    public Optional<SpeculativeParse> start(File excelFile) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        ImportPlan plan;
+        try {
+            plan = importEngineSelector.plan(excelFile);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+        if (plan.estimatedHeapBytes() > maxHeapBytes) {
+            System.out.println(excelFile.getName() + " is not parsed ahead: it needs ~" + (plan.estimatedHeapBytes() / (1024 * 1024))
+                    + " MB heap, more than importer.speculative.max-heap-mb.");
+            return Optional.empty();
+        }
+
+        SpeculativeParse speculativeParse = new SpeculativeParse(excelFile);
+        Thread.ofVirtual().name("speculative-parse").start(() -> {
+            try {
+                String fileSha256 = importLedgerService.computeSha256(excelFile);
+                ImportProgress progress = speculativeParse.getProgress();
+                ParsedWorkbook workbook = plan.engine() == ImportEngine.STREAMING
+                        ? excelProcessingService.parseExcelDataStreaming(excelFile, progress)
+                        : excelProcessingService.parseExcelData(excelFile, progress);
+                speculativeParse.complete(fileSha256, workbook);
+            } catch (Exception e) {
+                // Also ImportCancelledException once the parse is discarded because another file was picked
+                speculativeParse.fail(e);
+            }
+        });
+        return Optional.of(speculativeParse);
+    }
+}
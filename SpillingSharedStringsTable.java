@@ -0,0 +1,246 @@
+// service/SpillingSharedStringsTable.java
+package com.ppi.utility.importer.service;
+
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shared strings table for the streaming reader that keeps the strings on disk instead of the heap.
+ *
+ * While sharedStrings.xml is parsed, each string is appended as UTF-8 to a temporary data file and its
+ * start offset to a temporary index file. Lookups read the offset pair from the memory-mapped index and the
+ * bytes from the data file; a small LRU cache keeps the most recently used strings on the heap.
+ * Heap use is therefore bounded by the cache size, however many unique strings the workbook holds.
+ *
+ * Must be closed to delete the temporary files.
+ */
+public class SpillingSharedStringsTable implements SharedStrings, Closeable {
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final FileChannel dataChannel;
+    private final FileChannel indexChannel;
+    private final LongBuffer offsets; // uniqueCount + 1 entries, the last one is the end of the data file
+    private final Map<Integer, String> hotCache;
+    private final int count;
+    private final int uniqueCount;
+
+    /**
+     * Parses the given sharedStrings.xml stream into temporary files.
+     *
+     * @param sharedStringsXml The content of xl/sharedStrings.xml.
+     * @param spillDirectory Directory for the temporary files, or null for java.io.tmpdir.
+     * @param hotCacheSize Number of strings kept on the heap.
+     * @throws IOException If the stream or the temporary files cannot be read or written.
+     */
+    public SpillingSharedStringsTable(InputStream sharedStringsXml, File spillDirectory, int hotCacheSize) throws IOException {
+        Path directory = spillDirectory != null ? spillDirectory.toPath() : Path.of(System.getProperty("java.io.tmpdir"));
+        this.dataPath = Files.createTempFile(directory, "sst-", ".dat");
+        this.indexPath = Files.createTempFile(directory, "sst-", ".idx");
+        try {
+            SharedStringsSpiller spiller;
+            try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataPath), 64 * 1024));
+                 DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath), 64 * 1024))) {
+                spiller = new SharedStringsSpiller(data, index);
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(spiller);
+                parser.parse(new InputSource(sharedStringsXml));
+                index.writeLong(spiller.bytesWritten); // End offset of the last string
+            }
+            this.uniqueCount = spiller.stringsWritten;
+            this.count = spiller.declaredCount > 0 ? spiller.declaredCount : spiller.stringsWritten;
+
+            this.dataChannel = FileChannel.open(dataPath, StandardOpenOption.READ);
+            this.indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ);
+            this.offsets = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size()).asLongBuffer();
+        } catch (SAXException | ParserConfigurationException e) {
+            deleteTempFiles();
+            throw new IOException("Error reading shared strings: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            deleteTempFiles();
+            throw e;
+        }
+
+        int cacheSize = Math.max(1, hotCacheSize);
+        this.hotCache = new LinkedHashMap<>(cacheSize * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public RichTextString getItemAt(int idx) {
+        return new XSSFRichTextString(getString(idx));
+    }
+
+    /**
+     * @return The plain text of the shared string at the given index.
+     */
+    public String getString(int idx) {
+        if (idx < 0 || idx >= uniqueCount) {
+            throw new IndexOutOfBoundsException("Shared string index " + idx + " out of range (" + uniqueCount + " strings).");
+        }
+        synchronized (hotCache) {
+            String cached = hotCache.get(idx);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String value = readString(idx);
+        synchronized (hotCache) {
+            hotCache.put(idx, value);
+        }
+        return value;
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public int getUniqueCount() {
+        return uniqueCount;
+    }
+
+    private String readString(int idx) {
+        long start = offsets.get(idx);
+        int length = (int) (offsets.get(idx + 1) - start);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            // Positional reads do not move the channel position, so concurrent lookups are safe
+            while (buffer.hasRemaining()) {
+                if (dataChannel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of shared strings data file.");
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading shared string " + idx + ": " + e.getMessage(), e);
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            dataChannel.close();
+            indexChannel.close();
+        } finally {
+            deleteTempFiles();
+        }
+    }
+
+    private void deleteTempFiles() {
+        try {
+            Files.deleteIfExists(dataPath);
+        } catch (IOException e) {
+            // On some platforms a mapped file cannot be deleted until the mapping is collected
+            dataPath.toFile().deleteOnExit();
+        }
+        try {
+            Files.deleteIfExists(indexPath);
+        } catch (IOException e) {
+            indexPath.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * SAX handler that writes the plain text of every &lt;si&gt; item to the data file and its offset to the index.
+     * Rich text runs are concatenated and phonetic runs (&lt;rPh&gt;) appended after a space, exactly as the
+     * ReadOnlySharedStringsTable the reader uses below the spill threshold does, so both give the same cells.
+     */
+    private static class SharedStringsSpiller extends DefaultHandler {
+
+        private final OutputStream data;
+        private final DataOutputStream index;
+        private final StringBuilder text = new StringBuilder();
+        private boolean inText;
+        long bytesWritten;
+        int stringsWritten;
+        int declaredCount;
+
+        SharedStringsSpiller(OutputStream data, DataOutputStream index) {
+            this.data = data;
+            this.index = index;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "sst" -> {
+                    String countAttribute = attributes.getValue("count");
+                    if (countAttribute != null) {
+                        declaredCount = Integer.parseInt(countAttribute);
+                    }
+                }
+                case "si" -> text.setLength(0);
+                case "rPh" -> {
+                    if (text.length() > 0) {
+                        text.append(' ');
+                    }
+                }
+                case "t" -> inText = true;
+                default -> {
+                    // Formatting elements carry no text
+                }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "t" -> inText = false;
+                case "si" -> writeString();
+                default -> {
+                    // Nothing to do
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private void writeString() throws SAXException {
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                index.writeLong(bytesWritten);
+                data.write(bytes);
+            } catch (IOException e) {
+                throw new SAXException("Error writing shared strings temp file: " + e.getMessage(), e);
+            }
+            bytesWritten += bytes.length;
+            stringsWritten++;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+// test/service/SpillingSharedStringsTableTest.java
+package com.ppi.utility.importer.service;
+
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpillingSharedStringsTableTest {
+
+    private static final String SHARED_STRINGS_XML = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <sst xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" count="9" uniqueCount="6">
+            <si><t>SMITH</t></si>
+            <si><t></t></si>
+            <si><t xml:space="preserve"> O'Brien &amp; Zoë </t></si>
+            <si><r><rPr><b/></rPr><t>Rich</t></r><r><t xml:space="preserve"> text</t></r></si>
+            <si><t>東京</t><rPh sb="0" eb="2"><t>トウキョウ</t></rPh></si>
+            <si><t>SW1A 1AA</t></si>
+            </sst>
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void stringsMatchPoisInMemoryTable() throws Exception {
+        ReadOnlySharedStringsTable expected = new ReadOnlySharedStringsTable(stream(SHARED_STRINGS_XML));
+
+        // A single cached string, so most lookups go through the index and the data file
+        try (SpillingSharedStringsTable spilled = new SpillingSharedStringsTable(stream(SHARED_STRINGS_XML), tempDir.toFile(), 1)) {
+            assertThat(spilled.getUniqueCount()).isEqualTo(expected.getUniqueCount()).isEqualTo(6);
+            assertThat(spilled.getCount()).isEqualTo(9);
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = spilled.getUniqueCount() - 1; i >= 0; i--) {
+                    assertThat(spilled.getItemAt(i).getString()).as("string %d", i).isEqualTo(expected.getItemAt(i).getString());
+                }
+            }
+        }
+        assertThat(tempDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void spilledSharedStringsReadTheSameRows() throws Exception {
+        List<String[]> people = TestWorkbooks.people(300);
+        people.add(new String[]{"REF300", "B300", "O'Brien", "Zoë", "1980-01-01", "東京"});
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, people);
+        Path spillDirectory = Files.createDirectory(tempDir.resolve("spill"));
+
+        List<String> inMemory = readRows(new StreamingSheetReader(new WorkbookOpener(), 16, 10000, "", false, 8), file);
+        // Threshold 0 always spills; a small hot cache keeps evicting
+        List<String> spilled = readRows(new StreamingSheetReader(new WorkbookOpener(), 0, 16, spillDirectory.toString(), false, 8), file);
+
+        assertThat(spilled).hasSize(9 + 301).isEqualTo(inMemory);
+        assertThat(spilled.get(spilled.size() - 1)).contains("O'Brien", "Zoë", "東京");
+        assertThat(spillDirectory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void loadThatFailsPartWayDeletesItsTempFiles() {
+        StringBuilder xml = new StringBuilder("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+        for (int i = 0; i < 20000; i++) {
+            xml.append("<si><t>NAME").append(i).append("</t></si>");
+        }
+        xml.append("</sst>");
+        // Fails half way through, as a load does once the read it belongs to has ended
+        InputStream stopped = new FilterInputStream(stream(xml.toString())) {
+            private int bytesRead;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (bytesRead > xml.length() / 2) {
+                    throw new IOException("Shared strings no longer needed");
+                }
+                int n = super.read(b, off, Math.min(len, 1024));
+                bytesRead += Math.max(n, 0);
+                return n;
+            }
+        };
+
+        assertThatThrownBy(() -> new SpillingSharedStringsTable(stopped, tempDir.toFile(), 16))
+                .hasMessageContaining("no longer needed");
+        assertThat(tempDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void readThatStopsAtTheFirstRowLeavesNoSpilledStrings() throws Exception {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(2000));
+        Path spillDirectory = Files.createDirectory(tempDir.resolve("spill"));
+        List<String> rows = new ArrayList<>();
+
+        new StreamingSheetReader(new WorkbookOpener(), 0, 16, spillDirectory.toString(), true, 1)
+                .read(file, (rowNumber, cells) -> !rows.add(Arrays.toString(cells)));
+
+        assertThat(rows).hasSize(1);
+        assertThat(spillDirectory.toFile().list()).isEmpty();
+    }
+
+    private static List<String> readRows(StreamingSheetReader reader, File file) throws Exception {
+        List<String> rows = new ArrayList<>();
+        reader.read(file, (rowNumber, cells) -> rows.add(rowNumber + ": " + Arrays.toString(cells)));
+        return rows;
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.strip().getBytes(StandardCharsets.UTF_8));
+    }
+}
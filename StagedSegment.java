@@ -0,0 +1,29 @@
+// service/StagedSegment.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.ParsedWorkbook;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * A parsed file held in a local staging segment until the database accepts its rows.
+ *
+ * @param path The segment file.
+ * @param segmentId Unique id recorded in STAGING_SEGMENT_TBL once the segment has been replayed.
+ * @param fileName Name of the imported file, for the ledger and the log.
+ * @param fileSha256 Digest of the imported file, checked against the ledger when the segment is replayed.
+ * @param ledgerId The ledger entry written when the import started, or null if the database was unreachable then.
+ * @param allowDuplicate Whether the import was confirmed as a duplicate.
+ * @param stagedAt When the segment was written.
+ * @param workbook The parsed rows.
+ */
+public record StagedSegment(Path path,
+                            String segmentId,
+                            String fileName,
+                            String fileSha256,
+                            Long ledgerId,
+                            boolean allowDuplicate,
+                            LocalDateTime stagedAt,
+                            ParsedWorkbook workbook) {
+}
@@ -0,0 +1,222 @@
+// service/StagingDrainer.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.CaseMaster;
+import com.ppi.utility.importer.model.ImportLedgerEntry;
+import com.ppi.utility.importer.model.StagingSegmentEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the segments of the LocalStagingStore into CASE_MASTER_TBL once the database is reachable again.
+ *
+ * Every importer.staging.drain-interval-seconds a background thread takes the pending segments oldest first.
+ * Each segment is applied in one transaction that inserts its cases, records the segment in STAGING_SEGMENT_TBL
+ * and completes its ledger entry; the file is deleted after the commit. A segment already listed in
+ * STAGING_SEGMENT_TBL is only deleted, so every segment is applied exactly once even if the process stops between
+ * the commit and the deletion. While the database is still unavailable the round stops at the first segment,
+ * keeping the order; a segment that fails for any other reason is renamed to *.failed and the round goes on.
+ * The ledger is checked again before a segment is applied, since the same content may have been imported meanwhile.
+ * A segment staged after a connection failure during the commit may belong to rows that did commit: if
+ * CASE_MASTER_TBL already holds rows of the segment's ledger entry, the segment is recorded as applied and the
+ * entry completed without inserting them again.
+ */
+@Service
+public class StagingDrainer {
+
+    private static final String COUNT_SEGMENT_SQL = "SELECT COUNT(*) FROM STAGING_SEGMENT_TBL WHERE SEGMENT_ID = ?";
+
+    private static final String INSERT_SEGMENT_SQL =
+            "INSERT INTO STAGING_SEGMENT_TBL (SEGMENT_ID, FILE_NAME, FILE_SHA256, ROW_COUNT, STATUS, STAGED_TS, APPLIED_TS) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // CASE_ID is drawn from the same sequence the CaseMaster entity uses
+    private static final String INSERT_CASE_SQL =
+            "INSERT INTO CASE_MASTER_TBL (CASE_ID, CHANNEL_ID, USER_ID, SUBMITTED_TS, CASE_TYPE, CASE_STATUS_ID, "
+                    + "IS_CURRENT_UK_RESIDENT, TITLE_CODE, FIRST_NAME, MIDDLE_NAME, LAST_NAME, DATE_OF_BIRTH, POST_CODE, "
+                    + "THIRD_PARTY_REFERENCE_1, THIRD_PARTY_REFERENCE_2, IMPORT_LEDGER_ID) "
+                    + "VALUES (CASE_ID_SEQ.NEXTVAL, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final LocalStagingStore localStagingStore;
+    private final ImportLedgerService importLedgerService;
+    private final ImportReconciliationService importReconciliationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long drainIntervalSeconds;
+    private final int batchSize;
+    private ScheduledExecutorService scheduler;
+
+    public StagingDrainer(LocalStagingStore localStagingStore,
+                          ImportLedgerService importLedgerService,
+                          ImportReconciliationService importReconciliationService,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${importer.staging.drain-interval-seconds:30}") long drainIntervalSeconds,
+                          @Value("${importer.write.batch-size:500}") int batchSize) {
+        this.localStagingStore = localStagingStore;
+        this.importLedgerService = importLedgerService;
+        this.importReconciliationService = importReconciliationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.drainIntervalSeconds = Math.max(1, drainIntervalSeconds);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!localStagingStore.isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "staging-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drainQuietly, drainIntervalSeconds, drainIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Replays the pending segments, oldest first, until one cannot be applied because the database is unavailable.
+     *
+     * @return The number of segments applied or found already applied in this round.
+     */
+    public synchronized int drain() throws IOException {
+        List<Path> pending = localStagingStore.pendingSegments();
+        int drained = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            Path segmentPath = pending.get(i);
+            StagedSegment segment;
+            try {
+                segment = localStagingStore.read(segmentPath);
+            } catch (IOException e) {
+                System.err.println("Staged segment " + segmentPath.getFileName() + " cannot be read and is set aside: " + e.getMessage());
+                localStagingStore.markFailed(segmentPath);
+                continue;
+            }
+            try {
+                replay(segment);
+            } catch (RuntimeException e) {
+                if (LocalStagingStore.isDatabaseUnavailable(e)) {
+                    System.err.println("Database still unavailable, " + (pending.size() - i) + " staged segment(s) waiting: " + e.getMessage());
+                    return drained;
+                }
+                System.err.println("Staged segment " + segmentPath.getFileName() + " of " + segment.fileName()
+                        + " could not be applied and is set aside: " + e.getMessage());
+                localStagingStore.markFailed(segmentPath);
+                continue;
+            }
+            localStagingStore.delete(segmentPath);
+            drained++;
+        }
+        return drained;
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (Exception e) {
+            // Keeps the schedule alive; the next round tries again
+            System.err.println("Error draining staged import segments: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies one segment in a single transaction, unless STAGING_SEGMENT_TBL shows it was applied before.
+     */
+    private void replay(StagedSegment segment) {
+        Boolean written = transactionTemplate.execute(status -> {
+            Integer applied = jdbcTemplate.queryForObject(COUNT_SEGMENT_SQL, Integer.class, segment.segmentId());
+            if (applied != null && applied > 0) {
+                System.out.println("Staged segment " + segment.path().getFileName() + " was already applied; removing it.");
+                return false;
+            }
+
+            if (segment.ledgerId() != null) {
+                // The import's commit may have succeeded even though its connection failed
+                int committedRows = importLedgerService.countImportedRows(segment.ledgerId());
+                if (committedRows > 0) {
+                    System.out.println("Staged segment " + segment.path().getFileName() + " is not applied: its " + committedRows
+                            + " rows of " + segment.fileName() + " were committed by the import that staged it.");
+                    importLedgerService.recordReplayed(segment.ledgerId(), segment.fileSha256(), segment.fileName(),
+                            segment.stagedAt(), segment.allowDuplicate(), ImportLedgerEntry.Status.COMPLETED, committedRows);
+                    recordSegment(segment, StagingSegmentEntry.Status.APPLIED, committedRows);
+                    segment.workbook().setImportLedgerId(segment.ledgerId());
+                    return true; // Their reconciliation never ran
+                }
+            }
+
+            if (!segment.allowDuplicate() && segment.fileSha256() != null) {
+                importLedgerService.expireStaleEntries(segment.fileSha256());
+                ImportLedgerEntry previous = importLedgerService.findPreviousImport(segment.fileSha256(), segment.ledgerId()).orElse(null);
+                if (previous != null) {
+                    System.err.println("Staged segment " + segment.path().getFileName() + " is not applied: " + segment.fileName()
+                            + " has the same content as '" + previous.getFileName() + "', imported on " + previous.getStartedTs() + ".");
+                    recordSegment(segment, StagingSegmentEntry.Status.DUPLICATE, 0);
+                    importLedgerService.recordReplayed(segment.ledgerId(), segment.fileSha256(), segment.fileName(),
+                            segment.stagedAt(), segment.allowDuplicate(), ImportLedgerEntry.Status.FAILED, 0);
+                    return false;
+                }
+            }
+
+            List<CaseMaster> rows = segment.workbook().getRows();
+            // The ledger entry first: its id tags the replayed rows for the reconciliation
+            ImportLedgerEntry ledgerEntry = importLedgerService.recordReplayed(segment.ledgerId(), segment.fileSha256(),
+                    segment.fileName(), segment.stagedAt(), segment.allowDuplicate(), ImportLedgerEntry.Status.COMPLETED, rows.size());
+            segment.workbook().setImportLedgerId(ledgerEntry.getLedgerId());
+            for (int batchStart = 0; batchStart < rows.size(); batchStart += batchSize) {
+                List<CaseMaster> batch = rows.subList(batchStart, Math.min(batchStart + batchSize, rows.size()));
+                jdbcTemplate.batchUpdate(INSERT_CASE_SQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        DeltaCaseMasterWriter.bindCaseColumns(ps, 1, batch.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                });
+            }
+            recordSegment(segment, StagingSegmentEntry.Status.APPLIED, rows.size());
+            System.out.println("Applied staged segment " + segment.path().getFileName() + ": " + rows.size() + " rows of "
+                    + segment.fileName() + " inserted into CASE_MASTER_TBL.");
+            return true;
+        });
+        if (Boolean.TRUE.equals(written)) {
+            try {
+                importReconciliationService.reconcile(segment.workbook());
+            } catch (Exception e) {
+                System.err.println("Error reconciling staged segment " + segment.path().getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void recordSegment(StagedSegment segment, StagingSegmentEntry.Status status, int rowCount) {
+        jdbcTemplate.update(INSERT_SEGMENT_SQL, segment.segmentId(), segment.fileName(), segment.fileSha256(), rowCount,
+                status.name(), Timestamp.valueOf(segment.stagedAt()), Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,154 @@
+// test/service/StagingDrainerTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.cli.HeadlessImporterApplication;
+import com.ppi.utility.importer.model.ParsedWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = HeadlessImporterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({HeadlessImporterApplication.PROFILE, "local"})
+class StagingDrainerTest {
+
+    private static final Path STAGING_DIRECTORY = createStagingDirectory();
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private LocalStagingStore localStagingStore;
+
+    @Autowired
+    private StagingDrainer stagingDrainer;
+
+    @Autowired
+    private ExcelProcessingService excelProcessingService;
+
+    @Autowired
+    private ImportLedgerService importLedgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void stagingProperties(DynamicPropertyRegistry registry) {
+        registry.add("importer.staging.enabled", () -> "true");
+        registry.add("importer.staging.directory", STAGING_DIRECTORY::toString);
+        registry.add("importer.staging.drain-interval-seconds", () -> "3600"); // The tests drain themselves
+    }
+
+    private static Path createStagingDirectory() {
+        try {
+            return Files.createTempDirectory("staging-drainer-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @BeforeEach
+    void clearTablesAndSegments() throws IOException {
+        jdbcTemplate.update("DELETE FROM STAGING_SEGMENT_TBL");
+        jdbcTemplate.update("DELETE FROM IMPORT_LEDGER_TBL");
+        jdbcTemplate.update("DELETE FROM CASE_MASTER_TBL");
+        for (Path segment : localStagingStore.pendingSegments()) {
+            localStagingStore.delete(segment);
+        }
+    }
+
+    @Test
+    void drainAppliesASegmentAndRemovesIt() throws Exception {
+        StagedSegment segment = stage(writeCases(15));
+
+        assertThat(stagingDrainer.drain()).isEqualTo(1);
+
+        assertThat(caseCount()).isEqualTo(15);
+        assertThat(Files.exists(segment.path())).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT STATUS FROM STAGING_SEGMENT_TBL WHERE SEGMENT_ID = ?", String.class,
+                segment.segmentId())).isEqualTo("APPLIED");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CASE_MASTER_TBL WHERE IMPORT_LEDGER_ID IS NULL", Integer.class))
+                .isZero();
+    }
+
+    @Test
+    void segmentLeftBehindAfterItsCommitIsNotAppliedAgain() throws Exception {
+        StagedSegment segment = stage(writeCases(15));
+        Path copy = tempDir.resolve("segment-copy");
+        Files.copy(segment.path(), copy);
+        stagingDrainer.drain();
+
+        // As if the process had stopped between the commit and the deletion of the file
+        Files.copy(copy, segment.path());
+        assertThat(stagingDrainer.drain()).isEqualTo(1);
+
+        assertThat(caseCount()).isEqualTo(15);
+        assertThat(Files.exists(segment.path())).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STAGING_SEGMENT_TBL", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void secondSegmentWithTheSameContentIsRecordedAsDuplicate() throws Exception {
+        File file = writeCases(15);
+        stage(file);
+        StagedSegment duplicate = stage(file);
+
+        assertThat(stagingDrainer.drain()).isEqualTo(2);
+
+        assertThat(caseCount()).isEqualTo(15);
+        assertThat(jdbcTemplate.queryForObject("SELECT STATUS FROM STAGING_SEGMENT_TBL WHERE SEGMENT_ID = ?", String.class,
+                duplicate.segmentId())).isEqualTo("DUPLICATE");
+    }
+
+    @Test
+    void segmentWhoseRowsCommittedBeforeTheConnectionFailedIsNotReplayed() throws Exception {
+        File file = writeCases(15);
+        excelProcessingService.processAndSaveExcelData(file, new ImportProgress(), new ImportOptions());
+        Long ledgerId = jdbcTemplate.queryForObject("SELECT LEDGER_ID FROM IMPORT_LEDGER_TBL", Long.class);
+        // As if the commit had succeeded but the import saw the connection fail and staged the rows
+        jdbcTemplate.update("UPDATE IMPORT_LEDGER_TBL SET STATUS = 'STAGED', ROW_COUNT = 0");
+        ParsedWorkbook workbook = excelProcessingService.parseExcelDataStreaming(file, new ImportProgress());
+        StagedSegment segment = localStagingStore.stage(workbook, file.getName(), importLedgerService.computeSha256(file),
+                ledgerId, false);
+
+        assertThat(stagingDrainer.drain()).isEqualTo(1);
+
+        assertThat(caseCount()).isEqualTo(15);
+        assertThat(Files.exists(segment.path())).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT STATUS FROM STAGING_SEGMENT_TBL WHERE SEGMENT_ID = ?", String.class,
+                segment.segmentId())).isEqualTo("APPLIED");
+        assertThat(jdbcTemplate.queryForObject("SELECT STATUS FROM IMPORT_LEDGER_TBL WHERE LEDGER_ID = ?", String.class, ledgerId))
+                .isEqualTo("COMPLETED");
+        assertThat(jdbcTemplate.queryForObject("SELECT ROW_COUNT FROM IMPORT_LEDGER_TBL WHERE LEDGER_ID = ?", Integer.class, ledgerId))
+                .isEqualTo(15);
+    }
+
+    private File writeCases(int rows) throws IOException {
+        return TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(rows));
+    }
+
+    /**
+     * Stages the file as an import would when the database is unavailable, without a ledger entry.
+     */
+    private StagedSegment stage(File file) throws Exception {
+        ParsedWorkbook workbook = excelProcessingService.parseExcelDataStreaming(file, new ImportProgress());
+        return localStagingStore.stage(workbook, file.getName(), importLedgerService.computeSha256(file), null, false);
+    }
+
+    private int caseCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CASE_MASTER_TBL", Integer.class);
+    }
+}
@@ -0,0 +1,78 @@
+// model/StagingSegmentEntry.java
+package com.ppi.utility.importer.model;
+
+import jakarta.persistence.*; // Use jakarta.persistence for Spring Boot 3+
+import java.time.LocalDateTime;
+
+/**
+ * JPA Entity representing a row in the STAGING_SEGMENT_TBL.
+ * One row is written for every local staging segment the StagingDrainer has replayed, in the same transaction
+ * as the segment's cases. A segment whose id is already listed is never applied again, so a segment file that
+ * survives a crash between the commit and its deletion does not duplicate rows.
+ * The entity exists so that Hibernate (ddl-auto=update) creates the table; rows are written with plain JDBC.
+ */
+@Entity
+@Table(name = "STAGING_SEGMENT_TBL")
+public class StagingSegmentEntry {
+
+    /**
+     * APPLIED segments inserted their rows; DUPLICATE segments held a file whose content had been imported since.
+     */
+    public enum Status {
+        APPLIED, DUPLICATE
+    }
+
+    @Id
+    @Column(name = "SEGMENT_ID", length = 36) // UUID written into the segment file
+    private String segmentId;
+
+    @Column(name = "FILE_NAME", length = 255)
+    private String fileName;
+
+    @Column(name = "FILE_SHA256", length = 64)
+    private String fileSha256;
+
+    @Column(name = "ROW_COUNT")
+    private Integer rowCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "STAGED_TS")
+    private LocalDateTime stagedTs;
+
+    @Column(name = "APPLIED_TS")
+    private LocalDateTime appliedTs;
+
+    public StagingSegmentEntry() {
+    }
+
+    public String getSegmentId() {
+        return segmentId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getFileSha256() {
+        return fileSha256;
+    }
+
+    public Integer getRowCount() {
+        return rowCount;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStagedTs() {
+        return stagedTs;
+    }
+
+    public LocalDateTime getAppliedTs() {
+        return appliedTs;
+    }
+}
@@ -0,0 +1,379 @@
+// service/StreamingSheetReader.java
+package com.ppi.utility.importer.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads the first sheet of an .xlsx file row by row with POI's SAX (event) API,
+ * without building an XSSFWorkbook. Only the rows that are actually consumed are inflated,
+ * so callers that stop early (e.g. a preview) never pay for the rest of the sheet.
+ *
+ * Cell values are delivered as display strings. Date-formatted numeric cells are rendered
+ * in ISO form (yyyy-MM-dd, or yyyy-MM-ddTHH:mm[:ss] when they carry a time) so they can be parsed back.
+ *
+ * Shared strings are held on the heap for ordinary files. When the workbook's sharedStrings.xml is larger than
+ * importer.streaming.shared-strings.spill-threshold-mb, they are spilled to a SpillingSharedStringsTable instead,
+ * so the heap needed to read a sheet no longer grows with the number of unique strings.
+ *
+ * The shared strings, styles and sheet parts are inflated concurrently, see {@link #read(File, RowCallback)}.
+ */
+@Component
+public class StreamingSheetReader {
+
+    /** Columns A to I (0-indexed 0 to 8) are delivered for every row. */
+    public static final int MAX_COLUMNS = 9;
+
+    // The sheet is inflated ahead of the parser in chunks of this size
+    private static final int READ_AHEAD_CHUNK_BYTES = 64 * 1024;
+
+    private final WorkbookOpener workbookOpener;
+    private final long sharedStringsSpillThresholdBytes;
+    private final int sharedStringsHotCacheSize;
+    private final File spillDirectory;
+    private final boolean concurrentParts;
+    private final int sheetReadAheadChunks;
+
+    public StreamingSheetReader(WorkbookOpener workbookOpener,
+                                @Value("${importer.streaming.shared-strings.spill-threshold-mb:16}") long sharedStringsSpillThresholdMb,
+                                @Value("${importer.streaming.shared-strings.hot-cache-size:10000}") int sharedStringsHotCacheSize,
+                                @Value("${importer.streaming.spill-directory:}") String spillDirectory,
+                                @Value("${importer.streaming.concurrent-parts:true}") boolean concurrentParts,
+                                @Value("${importer.streaming.sheet-read-ahead-mb:8}") int sheetReadAheadMb) {
+        this.workbookOpener = workbookOpener;
+        this.sharedStringsSpillThresholdBytes = sharedStringsSpillThresholdMb * 1024 * 1024;
+        this.sharedStringsHotCacheSize = sharedStringsHotCacheSize;
+        this.spillDirectory = spillDirectory == null || spillDirectory.isBlank() ? null : new File(spillDirectory);
+        // On a single core the part loader threads would only take turns with the parser
+        this.concurrentParts = concurrentParts && Runtime.getRuntime().availableProcessors() > 1;
+        this.sheetReadAheadChunks = (int) Math.max(1, sheetReadAheadMb * 1024L * 1024 / READ_AHEAD_CHUNK_BYTES);
+    }
+
+    /**
+     * Callback receiving the rows of the sheet in file order.
+     * Rows that are physically absent from the sheet are not reported.
+     */
+    @FunctionalInterface
+    public interface RowCallback {
+        /**
+         * @param rowNumber The 1-based Excel row number.
+         * @param cells Display values of columns A to I; blank cells are null.
+         * @return true to keep reading, false to stop reading the sheet.
+         */
+        boolean onRow(int rowNumber, String[] cells);
+    }
+
+    /**
+     * Streams the rows of the first sheet of the given file to the callback.
+     *
+     * With importer.streaming.concurrent-parts the shared strings, the styles and the sheet are inflated and
+     * parsed at the same time on separate threads, instead of one after the other. Parsing of the sheet starts
+     * once the (small) styles are loaded, and the first cell that refers to a shared string waits until all
+     * shared strings are loaded; rows of numbers and dates do not wait at all. Meanwhile the sheet is inflated
+     * up to importer.streaming.sheet-read-ahead-mb ahead of the parser. A read that ends before the shared strings
+     * are loaded (a preview page, the first empty row, a cancellation) abandons their load instead of waiting for it,
+     * and any partly spilled strings are deleted.
+     *
+     * @param excelFile The .xlsx file to read.
+     * @param callback Receives each row; returning false stops the read.
+     * @throws IOException If the file cannot be read or is not a valid .xlsx package.
+     * @throws IllegalArgumentException If the workbook does not contain any sheets.
+     */
+    public void read(File excelFile, RowCallback callback) throws IOException {
+        OPCPackage pkg = workbookOpener.openPackage(excelFile);
+        ExecutorService partLoader = concurrentParts
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("workbook-part-", 1).factory())
+                : null;
+        Executor executor = partLoader != null ? partLoader : Runnable::run;
+        CompletableFuture<SharedStrings> strings = null;
+        AtomicBoolean stopStrings = new AtomicBoolean();
+        try {
+            // The package is not thread-safe, so all parts are looked up and opened here; only inflating
+            // and parsing their streams runs on the part loader threads
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("Excel file does not contain any sheets.");
+            }
+            strings = loadSharedStrings(pkg, excelFile, executor, stopStrings);
+            CompletableFuture<StylesTable> styles = loadStyles(pkg, executor);
+            try (InputStream sheet = partLoader != null
+                    ? new ReadAheadInputStream(sheets.next(), READ_AHEAD_CHUNK_BYTES, sheetReadAheadChunks, partLoader)
+                    : sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(await(styles), new PendingSharedStrings(strings),
+                        new RowCollector(callback), new IsoDateDataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            } catch (StopReading stop) {
+                // The callback asked to stop; the rest of the sheet is never inflated
+            }
+        } catch (PartLoadFailure e) {
+            throw new IOException("Error reading Excel file '" + excelFile.getName() + "': " + e.getCause().getMessage(), e.getCause());
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Error reading Excel file '" + excelFile.getName() + "': " + e.getMessage(), e);
+        } finally {
+            if (strings != null) {
+                // A load still running fails at its next read, e.g. after a preview stopped early; its spill file is deleted
+                stopStrings.set(true);
+                SharedStrings loaded = strings.handle((table, failure) -> table).join();
+                if (loaded instanceof Closeable closeable) {
+                    closeable.close(); // Deletes spilled shared strings
+                }
+            }
+            if (partLoader != null) {
+                partLoader.close();
+            }
+            // Read-only packages are released with revert(); close() would try to save them
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Loads the workbook's shared strings, spilling them to disk if the part is larger than the configured threshold.
+     * Setting stop makes the load fail at its next read of the part.
+     */
+    private CompletableFuture<SharedStrings> loadSharedStrings(OPCPackage pkg, File excelFile, Executor executor,
+                                                               AtomicBoolean stop) throws IOException, SAXException {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty()) {
+            return CompletableFuture.completedFuture(new ReadOnlySharedStringsTable(pkg)); // Workbook without shared strings: empty table
+        }
+        PackagePart part = parts.get(0);
+        InputStream sharedStringsXml = new StoppableInputStream(part.getInputStream(), stop);
+        if (part.getSize() > sharedStringsSpillThresholdBytes) {
+            System.out.println("Shared strings of '" + excelFile.getName() + "' are " + (part.getSize() / (1024 * 1024))
+                    + " MB uncompressed; spilling them to disk.");
+            return load(executor, () -> {
+                try (sharedStringsXml) {
+                    return new SpillingSharedStringsTable(sharedStringsXml, spillDirectory, sharedStringsHotCacheSize);
+                }
+            });
+        }
+        return load(executor, () -> {
+            try (sharedStringsXml) {
+                return new ReadOnlySharedStringsTable(sharedStringsXml);
+            }
+        });
+    }
+
+    /**
+     * Loads the workbook's styles, or null if it has none. Only the number formats are used, so the theme is not loaded.
+     */
+    private CompletableFuture<StylesTable> loadStyles(OPCPackage pkg, Executor executor) throws IOException {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.STYLES.getContentType());
+        if (parts.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        InputStream stylesXml = parts.get(0).getInputStream();
+        return load(executor, () -> {
+            try (stylesXml) {
+                return new StylesTable(stylesXml);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> load(Executor executor, Callable<T> loader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(loader.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Waits for a part to be loaded, rethrowing its failure as PartLoadFailure.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PartLoadFailure(e);
+        } catch (ExecutionException e) {
+            throw new PartLoadFailure(e.getCause());
+        }
+    }
+
+    /**
+     * Shared strings that are still being loaded: the first lookup waits for them.
+     */
+    private static class PendingSharedStrings implements SharedStrings {
+
+        private final CompletableFuture<SharedStrings> future;
+        private SharedStrings loaded;
+
+        PendingSharedStrings(CompletableFuture<SharedStrings> future) {
+            this.future = future;
+        }
+
+        private SharedStrings loaded() {
+            if (loaded == null) {
+                loaded = await(future);
+            }
+            return loaded;
+        }
+
+        @Override
+        public RichTextString getItemAt(int idx) {
+            return loaded().getItemAt(idx);
+        }
+
+        @Override
+        public int getCount() {
+            return loaded().getCount();
+        }
+
+        @Override
+        public int getUniqueCount() {
+            return loaded().getUniqueCount();
+        }
+    }
+
+    /**
+     * Part stream that fails once the read it belongs to has ended, so a load nobody waits for any more stops inflating.
+     */
+    private static class StoppableInputStream extends FilterInputStream {
+
+        private final AtomicBoolean stop;
+
+        StoppableInputStream(InputStream in, AtomicBoolean stop) {
+            super(in);
+            this.stop = stop;
+        }
+
+        private void checkStopped() throws IOException {
+            if (stop.get()) {
+                throw new IOException("Shared strings no longer needed");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkStopped();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkStopped();
+            return super.read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            checkStopped();
+            return super.skip(n);
+        }
+    }
+
+    /**
+     * A shared strings or styles load that failed on its part loader thread.
+     */
+    private static class PartLoadFailure extends RuntimeException {
+        PartLoadFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Collects the cells of one row and hands the finished row to the callback.
+     */
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowCallback callback;
+        private final String[] cells = new String[MAX_COLUMNS];
+
+        RowCollector(RowCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, null);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!callback.onRow(rowNum + 1, cells.clone())) {
+                throw new StopReading();
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null || formattedValue == null) {
+                return;
+            }
+            int column = new CellReference(cellReference).getCol();
+            if (column < MAX_COLUMNS) {
+                String value = formattedValue.trim();
+                cells[column] = value.isEmpty() ? null : value;
+            }
+        }
+    }
+
+    /**
+     * Thrown from the contents handler to abandon the SAX parse once the callback is done.
+     */
+    private static class StopReading extends RuntimeException {
+        StopReading() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * DataFormatter that renders date-formatted numbers as ISO dates instead of the workbook's display format.
+     */
+    private static class IsoDateDataFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                LocalDateTime dateTime = DateUtil.getLocalDateTime(value, use1904Windowing);
+                return dateTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                        ? dateTime.toLocalDate().toString()
+                        : dateTime.toString();
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+// test/service/TestWorkbooks.java
+package com.ppi.utility.importer.service;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes .xlsx files in the importer's layout for tests: SUBMITTED_TS in D6, data rows from row 10 in columns B to G.
+ */
+public final class TestWorkbooks {
+
+    public static final LocalDateTime SUBMITTED_TS = LocalDateTime.of(2024, 5, 1, 10, 15);
+
+    private TestWorkbooks() {
+    }
+
+    /**
+     * @return count rows of distinct people with references REF0, REF1, ...
+     */
+    public static List<String[]> people(int count) {
+        List<String[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new String[]{"REF" + i, "B" + i, "SMITH" + i, "JOHN", LocalDate.of(1980, 1, 1).plusDays(i).toString(), "SW1A 1AA"});
+        }
+        return rows;
+    }
+
+    /**
+     * @param rows Columns B to G of each data row: references 1 and 2, last name, first name, ISO date of birth, postcode.
+     */
+    public static File write(Path directory, String fileName, LocalDateTime submittedTs, List<String[]> rows) throws IOException {
+        return write(directory, fileName, submittedTs, rows, true);
+    }
+
+    /**
+     * Same as {@link #write(Path, String, LocalDateTime, List)}, but of the header rows 1 to 9 only row 6 (D6) is
+     * physically present in the sheet, as in files saved by tools that leave out empty rows.
+     */
+    public static File writeWithoutHeaderRows(Path directory, String fileName, LocalDateTime submittedTs, List<String[]> rows)
+            throws IOException {
+        return write(directory, fileName, submittedTs, rows, false);
+    }
+
+    private static File write(Path directory, String fileName, LocalDateTime submittedTs, List<String[]> rows,
+                              boolean headerRows) throws IOException {
+        File file = directory.resolve(fileName).toFile();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file.toPath())) {
+            Sheet sheet = workbook.createSheet("Cases");
+            CellStyle dateTimeStyle = workbook.createCellStyle();
+            dateTimeStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+            // Header rows 1 to 9 are physically present, like in the partner files, unless left out on purpose
+            for (int r = 0; r < 9; r++) {
+                if (headerRows || r == 5) {
+                    sheet.createRow(r).createCell(0).setCellValue("Header " + (r + 1));
+                }
+            }
+            if (submittedTs != null) {
+                Cell d6 = sheet.getRow(5).createCell(3);
+                d6.setCellValue(submittedTs);
+                d6.setCellStyle(dateTimeStyle);
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                String[] values = rows.get(i);
+                Row row = sheet.createRow(9 + i);
+                for (int c = 0; c < values.length; c++) {
+                    if (values[c] == null) {
+                        continue;
+                    }
+                    Cell cell = row.createCell(1 + c);
+                    if (c == 4) {
+                        cell.setCellValue(LocalDate.parse(values[c]));
+                        cell.setCellStyle(dateStyle);
+                    } else {
+                        cell.setCellValue(values[c]);
+                    }
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+}
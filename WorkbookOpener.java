@@ -0,0 +1,85 @@
+// service/WorkbookOpener.java
+package com.ppi.utility.importer.service;
+
+import org.apache.poi.openxml4j.exceptions.InvalidOperationException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Opens .xlsx files for reading without buffering them.
+ *
+ * Passing a FileInputStream to XSSFWorkbook makes POI copy every entry of the zip package into memory before
+ * parsing starts. Opening the package from the File instead reads the zip's central directory and inflates
+ * entries on demand, so only the parts that are actually used (workbook, styles, shared strings, first sheet)
+ * are ever decompressed. Packages are opened read-only and released with revert(), so the file is never rewritten.
+ */
+@Component
+public class WorkbookOpener {
+
+    /**
+     * Opens the OPC package of the given file with random access to its zip entries.
+     * The caller must release it with {@link OPCPackage#revert()}.
+     *
+     * @param excelFile The .xlsx file to open.
+     * @return The read-only package.
+     * @throws IOException If the file does not exist or is not a valid .xlsx package.
+     */
+    public OPCPackage openPackage(File excelFile) throws IOException {
+        if (!excelFile.isFile()) {
+            throw new IOException("Excel file not found: " + excelFile.getAbsolutePath());
+        }
+        try {
+            return OPCPackage.open(excelFile, PackageAccess.READ);
+        } catch (OpenXML4JException | InvalidOperationException e) {
+            throw new IOException("Not a valid .xlsx file: " + excelFile.getName(), e);
+        }
+    }
+
+    /**
+     * Opens the given file as an XSSFWorkbook backed by a read-only package.
+     *
+     * @param excelFile The .xlsx file to open.
+     * @return The opened workbook; close it to release the file.
+     * @throws IOException If the file cannot be opened or parsed.
+     */
+    public OpenedWorkbook openWorkbook(File excelFile) throws IOException {
+        OPCPackage pkg = openPackage(excelFile);
+        try {
+            return new OpenedWorkbook(pkg, new XSSFWorkbook(pkg));
+        } catch (IOException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    /**
+     * An XSSFWorkbook together with the read-only package it was loaded from.
+     * Closing it reverts the package instead of closing the workbook, which would try to save a read-only file.
+     */
+    public static class OpenedWorkbook implements Closeable {
+
+        private final OPCPackage pkg;
+        private final XSSFWorkbook workbook;
+
+        OpenedWorkbook(OPCPackage pkg, XSSFWorkbook workbook) {
+            this.pkg = pkg;
+            this.workbook = workbook;
+        }
+
+        public XSSFWorkbook getWorkbook() {
+            return workbook;
+        }
+
+        @Override
+        public void close() {
+            pkg.revert();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+// model/WorkbookPreview.java
+package com.ppi.utility.importer.model;
+
+import java.util.List;
+
+/**
+ * A page of data rows read from a workbook for preview, together with the raw SUBMITTED_TS header (D6).
+ */
+public class WorkbookPreview {
+
+    private final String submittedTsHeader;
+    private final List<PreviewRow> rows;
+    private final boolean moreRows;
+
+    public WorkbookPreview(String submittedTsHeader, List<PreviewRow> rows, boolean moreRows) {
+        this.submittedTsHeader = submittedTsHeader;
+        this.rows = rows;
+        this.moreRows = moreRows;
+    }
+
+    /**
+     * @return The display value of D6, or null if the cell is empty.
+     */
+    public String getSubmittedTsHeader() {
+        return submittedTsHeader;
+    }
+
+    public List<PreviewRow> getRows() {
+        return rows;
+    }
+
+    /**
+     * @return true if at least one more data row follows this page.
+     */
+    public boolean hasMoreRows() {
+        return moreRows;
+    }
+}
@@ -0,0 +1,128 @@
+// service/WorkbookPreviewCursor.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.PreviewRow;
+import com.ppi.utility.importer.model.WorkbookPreview;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An open preview of one workbook, see WorkbookPreviewService.open().
+ *
+ * The sheet is read once, on a background thread, which stays parked a few rows ahead of the last page
+ * handed out. Each {@link #nextPage(int)} continues where the previous page ended, so scrolling through
+ * a large file costs one pass over the sheet instead of one pass per page. Closing the cursor stops the
+ * read and releases the package; a preview that is replaced or hidden must be closed.
+ */
+public class WorkbookPreviewCursor implements Closeable {
+
+    private static final PreviewRow END = new PreviewRow(-1, new String[0]);
+
+    private final BlockingQueue<PreviewRow> rows;
+    private volatile boolean closed;
+    private volatile String submittedTsHeader;
+    private volatile IOException failure;
+    private PreviewRow lookahead; // Row taken to find out whether another page follows
+
+    /**
+     * @param readAheadRows Rows the background read may get ahead of the pages handed out.
+     */
+    WorkbookPreviewCursor(int readAheadRows) {
+        this.rows = new ArrayBlockingQueue<>(Math.max(1, readAheadRows) + 1); // One extra slot for END
+    }
+
+    void setSubmittedTsHeader(String submittedTsHeader) {
+        this.submittedTsHeader = submittedTsHeader;
+    }
+
+    /**
+     * Hands a row to the pages, waiting while the consumer is behind. Returns false once the cursor is closed.
+     */
+    boolean offer(PreviewRow row) {
+        try {
+            while (!closed) {
+                if (rows.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Called by the background read when the sheet has ended, the read failed or the cursor was closed.
+     */
+    void finish(IOException failure) {
+        this.failure = failure;
+        offer(END);
+    }
+
+    /**
+     * Waits for the next rows of the sheet.
+     *
+     * @param pageSize Maximum number of data rows to return.
+     * @return The page, the D6 header and whether more rows follow.
+     * @throws IOException If the file cannot be read, or the cursor was closed.
+     */
+    public synchronized WorkbookPreview nextPage(int pageSize) throws IOException {
+        List<PreviewRow> page = new ArrayList<>(pageSize);
+        while (page.size() < pageSize) {
+            PreviewRow row = take();
+            if (row == END) {
+                break;
+            }
+            page.add(row);
+        }
+        boolean moreRows = page.size() == pageSize && (lookahead = take()) != END;
+        return new WorkbookPreview(submittedTsHeader, page, moreRows);
+    }
+
+    private PreviewRow take() throws IOException {
+        if (lookahead != null) {
+            PreviewRow row = lookahead;
+            if (row != END) {
+                lookahead = null;
+            }
+            return row;
+        }
+        if (closed) {
+            throw new IOException("Preview closed");
+        }
+        PreviewRow row;
+        try {
+            row = rows.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for preview rows", e);
+        }
+        if (row == END) {
+            if (closed) {
+                throw new IOException("Preview closed"); // END from close(), not from the sheet
+            }
+            lookahead = END; // Every later page is empty
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Stops the background read; it releases the workbook at its next row. A page still waiting for rows
+     * fails with an IOException instead of waiting forever.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        rows.clear(); // Unblocks the background read, which then sees closed and stops
+        rows.offer(END); // The read no longer sends END once closed; wakes a page blocked in take()
+    }
+}
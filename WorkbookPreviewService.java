@@ -0,0 +1,80 @@
+// service/WorkbookPreviewService.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.PreviewRow;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Service that reads data rows from a workbook page by page so the user can check a file
+ * before importing it. Uses the StreamingSheetReader and reads only as far as the pages
+ * shown, so previewing never loads the whole workbook.
+ */
+@Service
+public class WorkbookPreviewService {
+
+    // Same layout as ExcelProcessingService: D6 holds SUBMITTED_TS, data starts at row 10 in columns B to I
+    private static final int SUBMITTED_TS_ROW_NUMBER = 6;
+    private static final int SUBMITTED_TS_COLUMN = 3;
+    private static final int FIRST_DATA_ROW_NUMBER = 10;
+    private static final int FIRST_DATA_COLUMN = 1;
+    private static final int LAST_DATA_COLUMN = 8;
+    // Columns B to G are shown in the preview
+    private static final int PREVIEW_COLUMNS = 6;
+    // Rows read beyond the last page handed out, so the next page is usually ready when the user scrolls
+    private static final int READ_AHEAD_ROWS = 200;
+
+    private final StreamingSheetReader streamingSheetReader;
+
+    public WorkbookPreviewService(StreamingSheetReader streamingSheetReader) {
+        this.streamingSheetReader = streamingSheetReader;
+    }
+
+    /**
+     * Opens a preview of the given workbook. The sheet is read on a background thread as pages are taken
+     * from the returned cursor, which must be closed once the preview is no longer shown.
+     *
+     * @param excelFile The workbook to preview.
+     * @return The cursor; read errors are reported by its nextPage().
+     */
+    public WorkbookPreviewCursor open(File excelFile) {
+        WorkbookPreviewCursor cursor = new WorkbookPreviewCursor(READ_AHEAD_ROWS);
+        Thread.ofVirtual().name("workbook-preview").start(() -> {
+            IOException failure = null;
+            try {
+                streamingSheetReader.read(excelFile, (rowNumber, cells) -> {
+                    if (rowNumber == SUBMITTED_TS_ROW_NUMBER) {
+                        cursor.setSubmittedTsHeader(cells[SUBMITTED_TS_COLUMN]);
+                    }
+                    if (rowNumber < FIRST_DATA_ROW_NUMBER) {
+                        return true;
+                    }
+                    if (isRowEmpty(cells)) {
+                        return false; // The import stops at the first empty row, so does the preview
+                    }
+                    // Blocks while the pages are behind; false once the preview is closed
+                    return cursor.offer(new PreviewRow(rowNumber,
+                            Arrays.copyOfRange(cells, FIRST_DATA_COLUMN, FIRST_DATA_COLUMN + PREVIEW_COLUMNS)));
+                });
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException(e.getMessage(), e);
+            }
+            cursor.finish(failure);
+        });
+        return cursor;
+    }
+
+    private boolean isRowEmpty(String[] cells) {
+        for (int c = FIRST_DATA_COLUMN; c <= LAST_DATA_COLUMN; c++) {
+            if (cells[c] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+// test/service/WorkbookPreviewServiceTest.java
+package com.ppi.utility.importer.service;
+
+import com.ppi.utility.importer.model.PreviewRow;
+import com.ppi.utility.importer.model.WorkbookPreview;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkbookPreviewServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final WorkbookPreviewService workbookPreviewService = new WorkbookPreviewService(
+            new StreamingSheetReader(new WorkbookOpener(), 16, 10000, "", false, 8));
+
+    @Test
+    void pagesContinueWhereThePreviousPageEnded() throws IOException {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(120));
+
+        try (WorkbookPreviewCursor cursor = workbookPreviewService.open(file)) {
+            WorkbookPreview first = cursor.nextPage(50);
+            WorkbookPreview second = cursor.nextPage(50);
+            WorkbookPreview last = cursor.nextPage(50);
+
+            assertThat(first.getSubmittedTsHeader()).startsWith("2024-05-01");
+            assertThat(first.getRows()).hasSize(50);
+            assertThat(first.hasMoreRows()).isTrue();
+            assertThat(first.getRows().get(0).getRowNumber()).isEqualTo(10);
+            assertThat(second.getRows()).extracting(PreviewRow::getRowNumber).startsWith(60).endsWith(109);
+            assertThat(second.hasMoreRows()).isTrue();
+            assertThat(last.getRows()).hasSize(20);
+            assertThat(last.getRows().get(19).getValue(0)).isEqualTo("REF119");
+            assertThat(last.hasMoreRows()).isFalse();
+            assertThat(cursor.nextPage(50).getRows()).isEmpty();
+        }
+    }
+
+    @Test
+    void pageEndingExactlyAtTheLastRowHasNoMoreRows() throws IOException {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(50));
+
+        try (WorkbookPreviewCursor cursor = workbookPreviewService.open(file)) {
+            WorkbookPreview page = cursor.nextPage(50);
+
+            assertThat(page.getRows()).hasSize(50);
+            assertThat(page.hasMoreRows()).isFalse();
+        }
+    }
+
+    @Test
+    void closedCursorStopsTheRead() throws IOException {
+        File file = TestWorkbooks.write(tempDir, "cases.xlsx", TestWorkbooks.SUBMITTED_TS, TestWorkbooks.people(1000));
+        WorkbookPreviewCursor cursor = workbookPreviewService.open(file);
+        assertThat(cursor.nextPage(10).getRows()).hasSize(10);
+
+        cursor.close();
+
+        assertThatThrownBy(() -> cursor.nextPage(10)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void closingTheCursorReleasesAPageWaitingForRows() throws Exception {
+        WorkbookPreviewCursor cursor = new WorkbookPreviewCursor(10); // No background read: no row ever arrives
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<WorkbookPreview> page = executor.submit(() -> cursor.nextPage(10));
+            Thread.sleep(200); // Lets the page block waiting for its first row
+
+            cursor.close();
+
+            assertThatThrownBy(() -> page.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IOException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readErrorIsReportedByNextPage() {
+        WorkbookPreviewCursor cursor = workbookPreviewService.open(tempDir.resolve("missing.xlsx").toFile());
+
+        assertThatThrownBy(() -> cursor.nextPage(10)).isInstanceOf(IOException.class).hasMessageContaining("not found");
+    }
+}
@@ -1,12 +1,33 @@
 package com.ppi.utility.importer;
 
-import com.ppi.utility.importer.service.ExcelService;
+import com.ppi.utility.importer.model.PreviewRow;
+import com.ppi.utility.importer.model.WorkbookPreview;
+import com.ppi.utility.importer.service.CaseMasterExportService;
+import com.ppi.utility.importer.service.ImportJob;
+import com.ppi.utility.importer.service.ImportJobService;
+import com.ppi.utility.importer.service.ImportOptions;
+import com.ppi.utility.importer.service.ImportProgress;
+import com.ppi.utility.importer.service.ImportResult;
+import com.ppi.utility.importer.service.SpeculativeParse;
+import com.ppi.utility.importer.service.SpeculativeParseService;
+import com.ppi.utility.importer.service.WorkbookPreviewCursor;
+import com.ppi.utility.importer.service.WorkbookPreviewService;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,10 +36,13 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.text.DecimalFormat;
+import java.util.List;
 
 /**
  * JavaFX Controller for the main-view.fxml.
- * Handles UI interactions, file selection, and delegates Excel processing to ExcelService.
+ * Handles UI interactions, file selection, and submits Excel imports to the ImportJobService.
+ * A selected file is parsed in the background right away (SpeculativeParseService), so that Submit can go
+ * straight to the write; replacing the file discards that work.
  */
 @Component // Mark as a Spring component
 @Scope("prototype") // Important: JavaFX controllers are instantiated by FXML loader, not Spring.
@@ -31,19 +55,52 @@ public class MainController {
     @FXML
     private Button submitButton; // New button for submitting the file
 
+    @FXML
+    private CheckBox deltaImportCheckBox; // Only new and changed rows are written for the file's lineage
+
+    @FXML
+    private Button cancelButton; // Visible only while an import job is queued or running
+
     @FXML
     private Label messageLabel;
 
     @FXML
     private ProgressIndicator progressIndicator; // New progress indicator
 
-    private final ExcelService excelService;
+    @FXML
+    private Label previewHeaderLabel; // Shows the SUBMITTED_TS header (D6) of the selected file
+
+    @FXML
+    private TableView<PreviewRow> previewTable; // Virtualized preview of the selected file's data rows
+
+    @FXML
+    private ListView<ImportJob> jobQueueList; // Pending, running and recently finished import jobs
+
+    @FXML
+    private Button exportButton; // Exports the selected job's cases, or all cases if no finished job is selected
+
+    // Number of data rows read per preview page; more pages are loaded as the user scrolls
+    private static final int PREVIEW_PAGE_SIZE = 50;
+
+    private final ImportJobService importJobService;
+    private final WorkbookPreviewService workbookPreviewService;
+    private final CaseMasterExportService caseMasterExportService;
+    private final SpeculativeParseService speculativeParseService;
     private File selectedExcelFile; // To store the selected file
+    private SpeculativeParse speculativeParse; // Background parse of the selected file, handed to the job on Submit
+
+    private WorkbookPreviewCursor previewCursor; // Open preview of the selected file, continued page by page
+    private boolean previewHasMore;
+    private boolean previewLoading;
 
     // Use constructor injection for Spring-managed services
     @Autowired
-    public MainController(ExcelService excelService) {
-        this.excelService = excelService;
+    public MainController(ImportJobService importJobService, WorkbookPreviewService workbookPreviewService,
+                          CaseMasterExportService caseMasterExportService, SpeculativeParseService speculativeParseService) {
+        this.importJobService = importJobService;
+        this.workbookPreviewService = workbookPreviewService;
+        this.caseMasterExportService = caseMasterExportService;
+        this.speculativeParseService = speculativeParseService;
     }
 
     /**
@@ -51,7 +108,9 @@ public class MainController {
      */
     @FXML
     public void initialize() {
+        setupPreviewTable();
         resetUI(); // Set initial UI state
+        setupJobQueue();
     }
 
     /**
@@ -65,13 +124,17 @@ public class MainController {
         submitButton.setVisible(false);
         submitButton.setManaged(false); // Ensure it doesn't take up space
 
+        deltaImportCheckBox.setSelected(false);
+        deltaImportCheckBox.setVisible(false);
+        deltaImportCheckBox.setManaged(false);
+
         messageLabel.setText("Click 'Upload File' to select an Excel document.");
         messageLabel.getStyleClass().remove("success-message"); // Remove any previous styling
         messageLabel.getStyleClass().remove("error-message");
         messageLabel.getStyleClass().remove("processing-message");
 
-        progressIndicator.setVisible(false);
-        progressIndicator.setManaged(false); // Ensure it doesn't take up space
+        discardSpeculativeParse();
+        clearPreview();
     }
 
     /**
@@ -116,6 +179,9 @@ public class MainController {
         submitButton.setVisible(true);
         submitButton.setManaged(true);
 
+        deltaImportCheckBox.setVisible(true);
+        deltaImportCheckBox.setManaged(true);
+
         DecimalFormat df = new DecimalFormat("#.##");
         String fileSize = df.format((double) file.length() / (1024 * 1024)); // Size in MB
         messageLabel.setText("Selected file: " + file.getName() + " (" + fileSize + " MB)");
@@ -123,89 +189,357 @@ public class MainController {
         messageLabel.getStyleClass().remove("error-message");
         messageLabel.getStyleClass().remove("processing-message");
 
-        progressIndicator.setVisible(false);
-        progressIndicator.setManaged(false);
+        loadPreview(file);
+        startSpeculativeParse(file);
     }
 
     /**
-     * Handles the action when the "Submit File" button is clicked.
+     * Starts parsing the selected file in the background, discarding the parse of a previously selected file.
+     * Once it is done, the message tells whether the file is ready to import or which row is wrong.
      */
-    @FXML
-    private void onSubmitButtonClick() {
-        if (selectedExcelFile == null) {
-            messageLabel.setText("Please select an Excel file first.");
-            messageLabel.getStyleClass().add("error-message");
+    private void startSpeculativeParse(File file) {
+        discardSpeculativeParse();
+        speculativeParse = speculativeParseService.start(file).orElse(null);
+        if (speculativeParse == null) {
             return;
         }
+        SpeculativeParse started = speculativeParse;
+        // Listener runs on the parsing thread; the message is updated on the JavaFX Application Thread
+        started.whenFinished(parse -> Platform.runLater(() -> {
+            if (started != speculativeParse) {
+                return; // Replaced or submitted meanwhile
+            }
+            Throwable failure = started.getFailure();
+            if (failure != null) {
+                showMessage("Selected file: " + file.getName() + " - it cannot be imported as it is: " + failure.getMessage(), "error-message");
+            } else if (started.isReady()) {
+                messageLabel.setText("Selected file: " + file.getName() + " - " + started.getRowCount() + " rows checked, ready to submit.");
+            }
+        }));
+    }
 
-        // Update UI for processing state
-        uploadButton.setVisible(false);
-        uploadButton.setManaged(false);
-        submitButton.setVisible(false);
-        submitButton.setManaged(false);
+    /**
+     * Stops the background parse of the selected file, if any, and releases its rows.
+     */
+    private void discardSpeculativeParse() {
+        if (speculativeParse != null) {
+            speculativeParse.discard();
+            speculativeParse = null;
+        }
+    }
 
-        messageLabel.setText("Processing " + selectedExcelFile.getName() + "...");
-        messageLabel.getStyleClass().add("processing-message"); // Add green styling
-        messageLabel.getStyleClass().remove("success-message");
-        messageLabel.getStyleClass().remove("error-message");
+    /**
+     * Creates the preview table columns (row number and columns B to G) and
+     * hooks lazy loading of further pages onto the table's vertical scroll bar.
+     */
+    private void setupPreviewTable() {
+        TableColumn<PreviewRow, String> rowColumn = new TableColumn<>("Row");
+        rowColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(String.valueOf(data.getValue().getRowNumber())));
+        previewTable.getColumns().add(rowColumn);
+
+        String[] headers = {"Reference 1", "Reference 2", "Last Name", "First Name", "Date of Birth", "Post Code"};
+        for (int i = 0; i < headers.length; i++) {
+            int column = i;
+            TableColumn<PreviewRow, String> tableColumn = new TableColumn<>(headers[i]);
+            tableColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(data.getValue().getValue(column)));
+            tableColumn.setSortable(false); // Rows are shown in file order; sorting a partial page would mislead
+            previewTable.getColumns().add(tableColumn);
+        }
+        rowColumn.setSortable(false);
+        previewTable.setPlaceholder(new Label("No rows to preview."));
+
+        // The scroll bars only exist once the table skin has been created
+        previewTable.skinProperty().addListener((observable, oldSkin, newSkin) -> {
+            for (Node node : previewTable.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                    scrollBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                        if (newValue.doubleValue() >= scrollBar.getMax() * 0.9) {
+                            loadNextPreviewPage();
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Hides the preview and closes its cursor, discarding any page still being read.
+     */
+    private void clearPreview() {
+        if (previewCursor != null) {
+            previewCursor.close();
+            previewCursor = null;
+        }
+        previewHasMore = false;
+        previewLoading = false;
+        previewTable.getItems().clear();
+        previewTable.setVisible(false);
+        previewTable.setManaged(false);
+        previewHeaderLabel.setText("");
+        previewHeaderLabel.setVisible(false);
+        previewHeaderLabel.setManaged(false);
+    }
+
+    /**
+     * Starts a fresh preview of the given file, replacing whatever was shown before.
+     */
+    private void loadPreview(File file) {
+        clearPreview();
+        previewCursor = workbookPreviewService.open(file);
+        previewTable.setVisible(true);
+        previewTable.setManaged(true);
+        previewHeaderLabel.setText("Loading preview...");
+        previewHeaderLabel.setVisible(true);
+        previewHeaderLabel.setManaged(true);
+        loadPreviewPage(previewCursor);
+    }
 
-        progressIndicator.setVisible(true);
-        progressIndicator.setManaged(true);
+    /**
+     * Loads the next page of the current preview, if there is one and no page is already being read.
+     */
+    private void loadNextPreviewPage() {
+        if (previewCursor != null && previewHasMore && !previewLoading) {
+            loadPreviewPage(previewCursor);
+        }
+    }
 
-        // Create a Task to perform the long-running operation in a background thread
-        Task<String> processTask = new Task<>() {
+    /**
+     * Takes the next page of preview rows from the cursor in a background thread and appends it to the table.
+     * Results for a preview that was closed meanwhile are dropped.
+     */
+    private void loadPreviewPage(WorkbookPreviewCursor cursor) {
+        previewLoading = true;
+        Task<WorkbookPreview> previewTask = new Task<>() {
             @Override
-            protected String call() throws Exception {
+            protected WorkbookPreview call() throws Exception {
                 // This code runs in a background thread
-                return excelService.processExcelFile(selectedExcelFile);
+                return cursor.nextPage(PREVIEW_PAGE_SIZE);
             }
 
             @Override
             protected void succeeded() {
-                // This code runs on the JavaFX Application Thread
-                String resultMessage = getValue();
-                messageLabel.setText(resultMessage);
-                if (resultMessage.startsWith("Upload successful")) {
-                    messageLabel.getStyleClass().add("success-message");
-                    messageLabel.getStyleClass().remove("error-message");
-                } else {
-                    messageLabel.getStyleClass().add("error-message");
-                    messageLabel.getStyleClass().remove("success-message");
+                if (cursor != previewCursor) {
+                    return; // The user picked another file meanwhile
                 }
-                messageLabel.getStyleClass().remove("processing-message");
-
-                progressIndicator.setVisible(false);
-                progressIndicator.setManaged(false);
-
-                // After processing, return to the initial "Upload File" state
-                selectedExcelFile = null; // Clear selected file
-                resetUI();
+                WorkbookPreview page = getValue();
+                previewTable.getItems().addAll(page.getRows());
+                previewHasMore = page.hasMoreRows();
+                previewLoading = false;
+
+                String header = page.getSubmittedTsHeader() != null ? page.getSubmittedTsHeader() : "(empty)";
+                previewHeaderLabel.setText("SUBMITTED_TS (D6): " + header + "  |  Rows shown: "
+                        + previewTable.getItems().size() + (previewHasMore ? "+" : ""));
             }
 
             @Override
             protected void failed() {
-                // This code runs on the JavaFX Application Thread
+                if (cursor != previewCursor) {
+                    return;
+                }
+                previewLoading = false;
+                previewHasMore = false;
                 Throwable exception = getException();
-                String errorMessage = "Error: " + (exception != null ? exception.getMessage() : "Unknown error.");
-                messageLabel.setText(errorMessage);
-                messageLabel.getStyleClass().add("error-message");
-                messageLabel.getStyleClass().remove("success-message");
-                messageLabel.getStyleClass().remove("processing-message");
-                System.err.println("Error processing Excel file: " + errorMessage);
-                if (exception != null) {
-                    exception.printStackTrace();
+                previewHeaderLabel.setText("Preview not available: " + (exception != null ? exception.getMessage() : "Unknown error."));
+            }
+        };
+
+        Thread previewThread = new Thread(previewTask, "workbook-preview");
+        previewThread.setDaemon(true);
+        previewThread.start();
+    }
+
+    /**
+     * Handles the action when the "Submit File" button is clicked.
+     * The file is queued as an import job; the UI returns to its initial state so the next file can be chosen
+     * while the job waits or runs.
+     */
+    @FXML
+    private void onSubmitButtonClick() {
+        if (selectedExcelFile == null) {
+            messageLabel.setText("Please select an Excel file first.");
+            messageLabel.getStyleClass().add("error-message");
+            return;
+        }
+
+        File fileToImport = selectedExcelFile;
+        ImportOptions options = new ImportOptions();
+        options.setDeltaImport(deltaImportCheckBox.isSelected());
+        options.setSpeculativeParse(speculativeParse); // The job takes over the rows already parsed
+        try {
+            ImportJob job = importJobService.submit(fileToImport, options);
+            selectedExcelFile = null; // Clear selected file
+            speculativeParse = null; // Owned by the job now, so resetUI() must not discard it
+            resetUI();
+            showMessage("Queued " + fileToImport.getName() + " as import job #" + job.getId() + ".", "processing-message");
+        } catch (IllegalStateException e) {
+            // Queue full: keep the selection so the user can submit again later
+            showMessage(e.getMessage(), "error-message");
+        }
+        refreshJobQueue();
+    }
+
+    /**
+     * Handles the action when the "Cancel" button is clicked.
+     * Cancels the job selected in the queue, or the most recently submitted active job if none is selected.
+     */
+    @FXML
+    private void onCancelButtonClick() {
+        ImportJob job = jobQueueList.getSelectionModel().getSelectedItem();
+        if (job == null || job.getStatus().isFinished()) {
+            job = null;
+            for (ImportJob candidate : jobQueueList.getItems()) {
+                if (!candidate.getStatus().isFinished()) {
+                    job = candidate; // Last active job wins
                 }
+            }
+        }
+        if (job != null) {
+            showMessage("Cancelling import job #" + job.getId() + "...", "processing-message");
+            importJobService.cancel(job);
+        }
+    }
 
-                progressIndicator.setVisible(false);
-                progressIndicator.setManaged(false);
+    /**
+     * Handles the action when the "Export Cases" button is clicked.
+     * If a successfully imported job is selected in the queue, only its cases (tagged with its IMPORT_LEDGER_ID)
+     * are exported; otherwise all of CASE_MASTER_TBL is. The export runs on a background thread.
+     */
+    @FXML
+    private void onExportButtonClick() {
+        ImportJob job = jobQueueList.getSelectionModel().getSelectedItem();
+        ImportResult result = job != null ? job.getResult() : null;
+        Long importLedgerId = result != null ? result.getImportLedgerId() : null;
+        if (result != null && importLedgerId == null) {
+            // Staged before the ledger was reachable: its rows cannot be told apart, and exporting everything would mislead
+            showMessage("Import job #" + job.getId() + " has no import ledger entry, so its cases cannot be exported on their own. "
+                    + "Clear the selection to export all cases.", "error-message");
+            return;
+        }
 
-                // After processing (even if failed), return to the initial "Upload File" state
-                selectedExcelFile = null; // Clear selected file
-                resetUI();
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(importLedgerId != null ? "Export cases of import job #" + job.getId() : "Export all cases");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Excel Files", "*.xlsx"));
+        fileChooser.setInitialFileName("cases-export.xlsx");
+        File targetFile = fileChooser.showSaveDialog((Stage) exportButton.getScene().getWindow());
+        if (targetFile == null) {
+            return;
+        }
+
+        Task<Integer> exportTask = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return importLedgerId != null
+                        ? caseMasterExportService.exportImport(targetFile, importLedgerId)
+                        : caseMasterExportService.export(targetFile, null);
             }
         };
+        exportTask.setOnSucceeded(event -> {
+            exportButton.setDisable(false);
+            showMessage("Exported " + exportTask.getValue() + " cases to " + targetFile.getName() + ".", "success-message");
+        });
+        exportTask.setOnFailed(event -> {
+            exportButton.setDisable(false);
+            Throwable error = exportTask.getException();
+            System.err.println("Error exporting cases: " + error.getMessage());
+            showMessage("Export failed: " + error.getMessage(), "error-message");
+        });
+
+        exportButton.setDisable(true);
+        showMessage("Exporting cases to " + targetFile.getName() + "...", "processing-message");
+        Thread exportThread = new Thread(exportTask, "case-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    /**
+     * Binds the job queue list to the ImportJobService and keeps it updated as jobs change status.
+     */
+    private void setupJobQueue() {
+        jobQueueList.setPlaceholder(new Label("No imports submitted yet."));
+        // Listener runs on the job's worker thread; all UI work is handed to the JavaFX Application Thread
+        importJobService.addListener(job -> Platform.runLater(() -> onJobChanged(job)));
+        refreshJobQueue();
+    }
+
+    /**
+     * Updates the queue and, once a job has finished, reports its outcome.
+     */
+    private void onJobChanged(ImportJob job) {
+        refreshJobQueue();
+        switch (job.getStatus()) {
+            case SUCCEEDED -> {
+                // A reconciliation mismatch means the rows are in, but not exactly as parsed
+                boolean reconciled = job.getResult() == null || job.getResult().isReconciled();
+                showMessage("File '" + job.getFile().getName() + "' processed: " + job.getResultMessage(),
+                        reconciled ? "success-message" : "error-message");
+            }
+            case FAILED -> {
+                String errorMessage = "Error: " + (job.getResultMessage() != null ? job.getResultMessage() : "Unknown error.");
+                System.err.println("Error processing Excel file: " + errorMessage);
+                showMessage(errorMessage, "error-message");
+            }
+            case CANCELLED -> {
+                // Report how far the import had got; nothing it wrote is kept
+                ImportProgress progress = job.getProgress();
+                String staged = progress.getRowsStaged() > 0 ? ", " + progress.getRowsStaged() + " rows staged" : "";
+                showMessage("Import of " + job.getFile().getName() + " cancelled after " + progress.getRowsParsed()
+                        + " rows parsed" + staged + " and " + progress.getRowsWritten() + " rows written. All changes were rolled back.", "error-message");
+            }
+            case DUPLICATE -> confirmDuplicateImport(job);
+            default -> {
+                // QUEUED / RUNNING: the queue list shows the new status
+            }
+        }
+    }
 
-        // Start the task in a new thread
-        new Thread(processTask).start();
+    /**
+     * Asks the user whether a file the import ledger has already seen should be imported again,
+     * and queues it with duplicates allowed if they confirm.
+     */
+    private void confirmDuplicateImport(ImportJob job) {
+        showMessage(job.getResultMessage(), "error-message");
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                job.getResultMessage() + "\n\nImport it again anyway? This will insert every row a second time.",
+                ButtonType.YES, ButtonType.NO);
+        alert.setTitle("File already imported");
+        alert.setHeaderText("Duplicate file");
+        alert.showAndWait()
+                .filter(ButtonType.YES::equals)
+                .ifPresent(answer -> {
+                    ImportOptions options = new ImportOptions();
+                    options.setAllowDuplicate(true);
+                    options.setDeltaImport(job.getOptions().isDeltaImport());
+                    options.setLineageKey(job.getOptions().getLineageKey());
+                    try {
+                        ImportJob repeat = importJobService.submit(job.getFile(), options);
+                        showMessage("Queued " + job.getFile().getName() + " again as import job #" + repeat.getId() + ".", "processing-message");
+                    } catch (IllegalStateException e) {
+                        showMessage(e.getMessage(), "error-message");
+                    }
+                    refreshJobQueue();
+                });
+    }
+
+    /**
+     * Reloads the job list and shows the progress indicator and Cancel button while any job is active.
+     */
+    private void refreshJobQueue() {
+        List<ImportJob> jobs = importJobService.getJobs();
+        jobQueueList.getItems().setAll(jobs);
+        boolean anyActive = jobs.stream().anyMatch(job -> !job.getStatus().isFinished());
+
+        progressIndicator.setVisible(anyActive);
+        progressIndicator.setManaged(anyActive);
+        cancelButton.setVisible(anyActive);
+        cancelButton.setManaged(anyActive);
+    }
+
+    /**
+     * Shows a message with one of the message styles (success-message, error-message, processing-message).
+     */
+    private void showMessage(String text, String styleClass) {
+        messageLabel.setText(text);
+        messageLabel.getStyleClass().removeAll("success-message", "error-message", "processing-message");
+        messageLabel.getStyleClass().add(styleClass);
     }
 }
@@ -0,0 +1,62 @@
+#!/bin/bash
+# native-benchmark.sh
+#
+# Compares startup time and peak RSS of the headless importer on the JVM, on the JVM with the AOT-generated
+# context (-Dspring.aot.enabled=true) and as a native executable. Build both first with:
+#   mvn -Pnative package
+# or, without GraalVM, only the jar with the AOT context:
+#   mvn -Pnative -DskipNativeBuild=true package
+#
+# Usage: ./native-benchmark.sh [runs] [importer arguments...]
+#   The default command looks up a reference that does not exist (exit code 5), which measures startup plus one
+#   query. Pass e.g. --import=small.xlsx --allow-duplicate to time a full import instead.
+#   Database settings are taken from application.properties or SPRING_DATASOURCE_* environment variables.
+#
+# Needs GNU time (/usr/bin/time) for the RSS figure. Without the native executable only the two JVM variants
+# are measured.
+#
+# Measured on 2026-10-19 (1 vCPU, 5 GB RAM, Temurin 21.0.1, profile "local" with in-memory H2, 3 runs each;
+# no GraalVM was available, so the "native" row is missing):
+#   --find-reference=NATIVE-BENCHMARK    JVM 18603 ms 228 MB    JVM + AOT 16470 ms 219 MB
+#   --import=smoke-10k.xlsx (10000 rows) JVM 29014 ms 374 MB    JVM + AOT 30054 ms 358 MB
+# Startup dominates on one vCPU and the run-to-run spread was about 3 s, so the JVM + AOT difference is within
+# noise. The native figures still have to be taken on a machine with GraalVM.
+
+RUNS=${1:-5}
+shift
+ARGS=("$@")
+[ ${#ARGS[@]} -eq 0 ] && ARGS=(--find-reference=NATIVE-BENCHMARK)
+
+JAR=$(ls target/importer-*-standalone.jar 2>/dev/null | head -1)
+NATIVE=target/ppi-importer-cli
+MAIN=com.ppi.utility.importer.cli.HeadlessImporterApplication
+
+if [ -z "$JAR" ]; then
+    echo "Build the jar and the native executable first: mvn -Pnative package" >&2
+    exit 1
+fi
+if [ ! -x "$NATIVE" ]; then
+    echo "No $NATIVE (needs GraalVM as JAVA_HOME); measuring the JVM variants only." >&2
+fi
+
+TIMINGS=$(mktemp)
+trap 'rm -f "$TIMINGS"' EXIT
+
+# Runs one variant RUNS times and prints the average wall time and peak RSS
+measure() {
+    local label=$1
+    shift
+    local runs=""
+    for ((i = 1; i <= RUNS; i++)); do
+        /usr/bin/time -f "%e %M" -o "$TIMINGS" "$@" "${ARGS[@]}" > /dev/null 2>&1
+        runs+=$(tail -1 "$TIMINGS")$'\n'
+    done
+    printf "%s" "$runs" | awk -v label="$label" \
+        '{ seconds += $1; kb += $2 } END { printf "%-12s %8.0f ms %8.0f MB\n", label, seconds * 1000 / NR, kb / NR / 1024 }'
+}
+
+echo "Average of $RUNS runs of: ${ARGS[*]}"
+printf "%-12s %11s %11s\n" "" "wall time" "peak RSS"
+measure "JVM" java -cp "$JAR" -Dloader.main=$MAIN org.springframework.boot.loader.launch.PropertiesLauncher
+measure "JVM + AOT" java -Dspring.aot.enabled=true -cp "$JAR" -Dloader.main=$MAIN org.springframework.boot.loader.launch.PropertiesLauncher
+[ -x "$NATIVE" ] && measure "native" "$NATIVE"